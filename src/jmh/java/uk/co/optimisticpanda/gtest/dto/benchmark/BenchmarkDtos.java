@@ -0,0 +1,164 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The shapes of dto generated and edited by the benchmarks.
+ *
+ * @author Andy Lee
+ */
+public final class BenchmarkDtos {
+
+	private BenchmarkDtos() {
+		// holder
+	}
+
+	/**
+	 * A handful of simple fields.
+	 */
+	public static class Flat {
+		private String name;
+		private int count;
+		private double amount;
+		private boolean active;
+		private Date created;
+		private Integer version;
+	}
+
+	/**
+	 * Many simple fields.
+	 */
+	public static class Wide {
+		private String field00;
+		private int field01;
+		private String field02;
+		private int field03;
+		private String field04;
+		private int field05;
+		private String field06;
+		private int field07;
+		private String field08;
+		private int field09;
+		private String field10;
+		private int field11;
+		private String field12;
+		private int field13;
+		private String field14;
+		private int field15;
+		private String field16;
+		private int field17;
+		private String field18;
+		private int field19;
+		private String field20;
+		private int field21;
+		private String field22;
+		private int field23;
+		private String field24;
+		private int field25;
+		private String field26;
+		private int field27;
+		private String field28;
+		private int field29;
+		private String field30;
+		private int field31;
+	}
+
+	/**
+	 * A chain of nested dtos, five levels deep.
+	 */
+	public static class Deep {
+		private String name;
+		private Level1 child;
+	}
+
+	/**
+	 * @see Deep
+	 */
+	public static class Level1 {
+		private String name;
+		private Level2 child;
+	}
+
+	/**
+	 * @see Deep
+	 */
+	public static class Level2 {
+		private String name;
+		private Level3 child;
+	}
+
+	/**
+	 * @see Deep
+	 */
+	public static class Level3 {
+		private String name;
+		private Level4 child;
+	}
+
+	/**
+	 * @see Deep
+	 */
+	public static class Level4 {
+		private String name;
+		private int depth;
+	}
+
+	/**
+	 * Mostly collections.
+	 */
+	public static class Collections {
+		private String name;
+		private List<String> tags;
+		private List<String> aliases;
+		private List<String> notes;
+		private Set<String> codes;
+		private Map<String, String> attributes;
+	}
+
+	/**
+	 * The dto edited by the editing benchmarks.
+	 */
+	public static class Editable {
+		private String status;
+		private String result;
+
+		/**
+		 * @param status
+		 */
+		public Editable(String status) {
+			this.status = status;
+		}
+
+		/**
+		 * @return status
+		 */
+		public String getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return result
+		 */
+		public String getResult() {
+			return result;
+		}
+	}
+}
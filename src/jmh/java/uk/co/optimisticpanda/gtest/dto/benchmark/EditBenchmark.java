@@ -0,0 +1,101 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.benchmark;
+
+import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.index;
+import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.valueOf;
+import static uk.co.optimisticpanda.gtest.dto.edit.Editors.changeValueOf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.optimisticpanda.gtest.dto.IDataEditor;
+import uk.co.optimisticpanda.gtest.dto.SimpleDataEditor;
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.benchmark.BenchmarkDtos.Editable;
+import uk.co.optimisticpanda.gtest.dto.rule.BaseEdit;
+
+/**
+ * Measures editing a list of {@value #LIST_SIZE} dtos with a
+ * {@link SimpleDataEditor}, as it is and compiled, for different numbers of
+ * rules. Most rules map a status to a result, as a mapping table would, and
+ * every tenth rule matches on the index instead. The rules only write the
+ * result, so every invocation does the same work.
+ *
+ * @author Andy Lee
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EditBenchmark {
+
+	private static final int LIST_SIZE = 1000;
+
+	@Param({ "10", "100", "1000" })
+	private int rules;
+
+	@Param({ "simple", "compiled" })
+	private String editorType;
+
+	private IDataEditor<Editable> editor;
+	private List<Editable> dtos;
+
+	/**
+	 * Build the rules and the list once.
+	 */
+	@Setup
+	public void setUp() {
+		TestUtilsContext.useOgnl();
+		SimpleDataEditor<Editable> simple = SimpleDataEditor.create();
+		for (int i = 0; i < rules; i++) {
+			if (i % 10 == 9) {
+				simple.add(new BaseEdit<Editable>(changeValueOf("result").to("I" + i), index().is(i)));
+			} else {
+				simple.add(new BaseEdit<Editable>(changeValueOf("result").to("R" + i), valueOf("status").is("S" + i)));
+			}
+		}
+		editor = "compiled".equals(editorType) ? simple.compile() : simple;
+		dtos = new ArrayList<Editable>(LIST_SIZE);
+		for (int i = 0; i < LIST_SIZE; i++) {
+			dtos.add(new Editable("S" + (i % rules)));
+		}
+	}
+
+	/**
+	 * @return the edited list
+	 */
+	@Benchmark
+	public Object edit() {
+		editor.edit(dtos);
+		return dtos;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.DefaultValueGenerator;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.RegisterTypeMode;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
+
+/**
+ * Measures {@link InstanceGenerator#generate()} for differently shaped dtos.
+ * Run with <code>gradle jmh</code>, or <code>gradle jmhGc</code> to see the
+ * allocation per generated dto.
+ *
+ * @author Andy Lee
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+	private static final int COLLECTION_SIZE = 16;
+
+	@Param({ "flat", "wide", "deep", "collections" })
+	private String shape;
+
+	@Param({ "ognl", "reflection" })
+	private String factory;
+
+	private InstanceGenerator<?> generator;
+
+	/**
+	 * Build the generator once, as a test would.
+	 */
+	@Setup
+	public void setUp() {
+		if ("ognl".equals(factory)) {
+			TestUtilsContext.useOgnl();
+		} else {
+			TestUtilsContext.useReflection();
+		}
+		DefaultValueGenerator values = new DefaultValueGenerator();
+		values.registerATypeGenerator(RegisterTypeMode.ALL_INTERFACES, ArrayList.class, GenerationBenchmark::filledList);
+		generator = InstanceGenerator.of(dtoClass()).useCache(values).build();
+	}
+
+	/**
+	 * @return a newly generated dto
+	 */
+	@Benchmark
+	public Object generate() {
+		return generator.generate();
+	}
+
+	private Class<?> dtoClass() {
+		switch (shape) {
+		case "flat":
+			return BenchmarkDtos.Flat.class;
+		case "wide":
+			return BenchmarkDtos.Wide.class;
+		case "deep":
+			return BenchmarkDtos.Deep.class;
+		case "collections":
+			return BenchmarkDtos.Collections.class;
+		default:
+			throw new IllegalArgumentException("Unknown shape: " + shape);
+		}
+	}
+
+	private static List<String> filledList() {
+		List<String> list = new ArrayList<String>(COLLECTION_SIZE);
+		for (int i = 0; i < COLLECTION_SIZE; i++) {
+			list.add("VALUE" + i);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+
+/**
+ * Compares get and set throughput of the available
+ * {@link IPropertyAccessFactory} implementations. Run with
+ * <code>gradle jmh</code>.
+ *
+ * @author Andy Lee
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyAccessBenchmark {
+
+	@Param({ "ognl", "compiledOgnl", "reflection", "handles" })
+	private String factory;
+
+	private IPropertyAccess nameAccess;
+	private IPropertyAccess countAccess;
+	private Dto dto;
+	private int counter;
+
+	/**
+	 * Configure the context for the factory under test and create the
+	 * accessors once, as the library itself does.
+	 */
+	@Setup
+	public void setUp() {
+		switch (factory) {
+		case "ognl":
+			TestUtilsContext.useOgnl();
+			break;
+		case "compiledOgnl":
+			TestUtilsContext.useCompiledOgnl();
+			break;
+		case "reflection":
+			TestUtilsContext.useReflection();
+			break;
+		case "handles":
+			TestUtilsContext.useHandles();
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown factory: " + factory);
+		}
+		IPropertyAccessFactory propertyAccessFactory = TestUtilsContext.getPropertyAccessFactory();
+		nameAccess = propertyAccessFactory.createPropertyAccess("name");
+		countAccess = propertyAccessFactory.createPropertyAccess("count");
+		dto = new Dto();
+	}
+
+	/**
+	 * @return the value of a private reference field
+	 */
+	@Benchmark
+	public Object getReference() {
+		return nameAccess.getValue(dto);
+	}
+
+	/**
+	 * @return the value of a private final primitive field
+	 */
+	@Benchmark
+	public Object getPrimitive() {
+		return countAccess.getValue(dto);
+	}
+
+	/**
+	 * @return the dto after writing a private reference field
+	 */
+	@Benchmark
+	public Object setReference() {
+		nameAccess.setValue(dto, "name");
+		return dto;
+	}
+
+	/**
+	 * @return the dto after writing a private final primitive field
+	 */
+	@Benchmark
+	public Object setPrimitive() {
+		countAccess.setValue(dto, Integer.valueOf(counter++ & 0xFF));
+		return dto;
+	}
+
+	/**
+	 * The dto being accessed.
+	 */
+	public static class Dto {
+		private String name = "name";
+		private final int count;
+
+		/**
+		 * Default constructor
+		 */
+		public Dto() {
+			this.count = 0;
+		}
+
+		/**
+		 * @return name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @param name
+		 */
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @return count
+		 */
+		public int getCount() {
+			return count;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.DefaultValueGenerator;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.ValueGenerator;
+
+/**
+ * Measures {@link ValueGenerator#lookUpGenerator(String, Field)} for a field
+ * covered by a property path, by its name and type, by its type alone and for
+ * a field no generator covers.
+ *
+ * @author Andy Lee
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueGeneratorBenchmark {
+
+	private ValueGenerator values;
+	private Field byPath;
+	private Field byNameAndType;
+	private Field byType;
+	private Field notCovered;
+
+	/**
+	 * Register a generator at each level of look up.
+	 *
+	 * @throws Exception
+	 *             if the benchmark dto has changed
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		values = new DefaultValueGenerator();
+		values.registerAPropertyDepthGenerator("child.name", () -> "PATH");
+		values.registerAPropertyNameAndTypeGenerator("count", int.class, () -> 1);
+		byPath = BenchmarkDtos.Level1.class.getDeclaredField("name");
+		byNameAndType = BenchmarkDtos.Flat.class.getDeclaredField("count");
+		byType = BenchmarkDtos.Flat.class.getDeclaredField("created");
+		notCovered = BenchmarkDtos.Deep.class.getDeclaredField("child");
+	}
+
+	/**
+	 * @return the generator registered against a property path
+	 */
+	@Benchmark
+	public Object lookUpByPath() {
+		return values.lookUpGenerator("child.name", byPath);
+	}
+
+	/**
+	 * @return the generator registered against a property name and type
+	 */
+	@Benchmark
+	public Object lookUpByNameAndType() {
+		return values.lookUpGenerator("count", byNameAndType);
+	}
+
+	/**
+	 * @return the generator registered against a type
+	 */
+	@Benchmark
+	public Object lookUpByType() {
+		return values.lookUpGenerator("created", byType);
+	}
+
+	/**
+	 * @return the marker for a field that no generator covers
+	 */
+	@Benchmark
+	public Object lookUpNotCovered() {
+		return values.lookUpGenerator("child", notCovered);
+	}
+}
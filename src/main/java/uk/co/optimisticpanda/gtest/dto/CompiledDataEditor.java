@@ -0,0 +1,411 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import uk.co.optimisticpanda.gtest.dto.condition.Condition;
+import uk.co.optimisticpanda.gtest.dto.condition.ValueEqualsCondition;
+import uk.co.optimisticpanda.gtest.dto.edit.Editor;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.RowReadCache;
+import uk.co.optimisticpanda.gtest.dto.rule.BaseEdit;
+import uk.co.optimisticpanda.gtest.dto.rule.CombinedEdit;
+import uk.co.optimisticpanda.gtest.dto.rule.Edit;
+import uk.co.optimisticpanda.gtest.dto.rule.LabeledEdit;
+
+/**
+ * <p>
+ * An {@link IDataEditor} created by {@link SimpleDataEditor#compile()}. The
+ * registered edits are flattened into an array of rules once, so editing a
+ * dto is a plain loop over arrays with no streams or lambdas involved.
+ * </p>
+ * <p>
+ * The semantics are the same as the {@link SimpleDataEditor} it was compiled
+ * from: each rule is checked and, if valid, applied before the next rule is
+ * checked, {@link CombinedEdit}s apply their rules in order and a
+ * {@link BaseEdit} fires if any of its conditions are valid. The plan is a
+ * snapshot, so edits added to the {@link SimpleDataEditor} or conditions added
+ * to its rules afterwards are not seen.
+ * </p>
+ * <p>
+ * When a whole list is edited, conditions that depend only on the index (see
+ * {@link Condition#isIndexOnly()}) are selected for the entire list up front,
+ * so those rules are matched against a precomputed mask rather than being
+ * evaluated for every dto.
+ * </p>
+ * <p>
+ * Runs of consecutive rules that each have a single
+ * {@link ValueEqualsCondition} on the same property, such as a mapping table
+ * of <code>valueOf("status").is(X)</code> rules, are replaced by one rule that
+ * reads the property once and looks up the matching rule in a hash table. The
+ * property is read again after a rule fires, so rules further down the run
+ * still see any change it made.
+ * </p>
+ * <p>
+ * If the {@link SimpleDataEditor} was set to edit
+ * {@link SimpleDataEditor#inParallel(ForkJoinPool) in parallel} then so is
+ * this.
+ * </p>
+ * 
+ * @author Andy Lee
+ * @param <D>
+ *            The type of dto that this will edit.
+ */
+public final class CompiledDataEditor<D> implements IDataEditor<D> {
+
+	private final Rule<D>[] rules;
+	private final boolean cachingReads;
+	private final ForkJoinPool pool;
+
+	CompiledDataEditor(List<Edit<D>> edits, boolean cachingReads, ForkJoinPool pool) {
+		this.cachingReads = cachingReads;
+		this.pool = pool;
+		List<Rule<D>> flattened = new ArrayList<Rule<D>>();
+		flatten(edits, flattened);
+		this.rules = toArray(dispatchOnValues(flattened));
+	}
+
+	/**
+	 * see {@link IDataEditor#edit(List)}
+	 * 
+	 * @param testData
+	 *            the collection of dtos to apply the rules to.
+	 */
+	@Override
+	public void edit(List<D> testData) {
+		Rule<D>[] selected = select(0, testData.size());
+		if (pool != null) {
+			ParallelEdits.edit(pool, testData, (item, index) -> apply(selected, index, item));
+			return;
+		}
+		int index = 0;
+		for (D dataItem : testData) {
+			apply(selected, index++, dataItem);
+		}
+	}
+
+	/**
+	 * see {@link IDataEditor#edit(int, Object)}
+	 * 
+	 * @param index
+	 *            the current index of the dto in the list
+	 * @param dataItem
+	 *            the dto to apply the rule to.
+	 */
+	@Override
+	public D edit(int index, D dataItem) {
+		return edit((long) index, dataItem);
+	}
+
+	@Override
+	public D edit(long index, D dataItem) {
+		apply(rules, index, dataItem);
+		return dataItem;
+	}
+
+	@SuppressWarnings("try")
+	private void apply(Rule<D>[] selected, long index, D dataItem) {
+		if (!cachingReads) {
+			applyRules(selected, index, dataItem);
+			return;
+		}
+		try (RowReadCache row = RowReadCache.open(dataItem)) {
+			applyRules(selected, index, dataItem);
+		}
+	}
+
+	private static <D> void applyRules(Rule<D>[] selected, long index, D dataItem) {
+		for (Rule<D> rule : selected) {
+			rule.apply(index, dataItem);
+		}
+	}
+
+	/**
+	 * @return the number of rules after flattening.
+	 */
+	public int getRuleCount() {
+		return rules.length;
+	}
+
+	/**
+	 * @return the rules to apply to the passed in range of indexes, with any
+	 *         index only conditions already selected.
+	 */
+	private Rule<D>[] select(int from, int to) {
+		Rule<D>[] selected = rules.clone();
+		for (int i = 0; i < selected.length; i++) {
+			selected[i] = selected[i].select(from, to);
+		}
+		return selected;
+	}
+
+	private static <D> void flatten(List<Edit<D>> edits, List<Rule<D>> rules) {
+		for (Edit<D> edit : edits) {
+			if (edit.getClass() == CombinedEdit.class) {
+				flatten(((CombinedEdit<D>) edit).getEdits(), rules);
+			} else if (edit.getClass() == BaseEdit.class || edit.getClass() == LabeledEdit.class) {
+				BaseEdit<D> baseEdit = (BaseEdit<D>) edit;
+				List<Condition> conditions = baseEdit.getConditions();
+				rules.add(new AnyConditionRule<D>(conditions.toArray(new Condition[conditions.size()]), baseEdit.getEditor()));
+			} else {
+				rules.add(new EditRule<D>(edit));
+			}
+		}
+	}
+
+	/**
+	 * Replace runs of rules that check the same property for equality with a
+	 * single {@link ValueDispatchRule}.
+	 */
+	private static <D> List<Rule<D>> dispatchOnValues(List<Rule<D>> rules) {
+		List<Rule<D>> result = new ArrayList<Rule<D>>();
+		int start = 0;
+		while (start < rules.size()) {
+			ValueEqualsCondition first = ValueDispatchRule.dispatchableCondition(rules.get(start));
+			int end = start + 1;
+			if (first != null) {
+				while (end < rules.size()) {
+					ValueEqualsCondition next = ValueDispatchRule.dispatchableCondition(rules.get(end));
+					if (next == null || !first.getContext().equals(next.getContext())) {
+						break;
+					}
+					end++;
+				}
+			}
+			if (end - start > 1) {
+				result.add(new ValueDispatchRule<D>(first, rules.subList(start, end)));
+			} else {
+				result.add(rules.get(start));
+			}
+			start = end;
+		}
+		return result;
+	}
+
+	private static <D> Rule<D>[] toArray(List<Rule<D>> rules) {
+		@SuppressWarnings("unchecked")
+		Rule<D>[] array = (Rule<D>[]) new Rule<?>[rules.size()];
+		return rules.toArray(array);
+	}
+
+	/**
+	 * A single step of the plan.
+	 */
+	private static abstract class Rule<D> {
+		abstract void apply(long index, D dataItem);
+
+		/**
+		 * @return a rule that only applies to the passed in range of indexes
+		 *         and may have precomputed what it can for that range.
+		 */
+		Rule<D> select(int from, int to) {
+			return this;
+		}
+	}
+
+	/**
+	 * A flattened {@link BaseEdit}: applies the editor if any condition is
+	 * valid.
+	 */
+	private static final class AnyConditionRule<D> extends Rule<D> {
+
+		private final Condition[] conditions;
+		private final Editor editor;
+
+		private AnyConditionRule(Condition[] conditions, Editor editor) {
+			this.conditions = conditions;
+			this.editor = editor;
+		}
+
+		@Override
+		void apply(long index, D dataItem) {
+			for (Condition condition : conditions) {
+				if (condition.isValid(index, dataItem)) {
+					editor.edit(index, dataItem);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * The index only conditions are combined into one mask. Conditions that
+		 * look at the dto are still checked, but only where the mask has not
+		 * already matched.
+		 */
+		@Override
+		Rule<D> select(int from, int to) {
+			BitSet mask = new BitSet(to - from);
+			List<Condition> remaining = new ArrayList<Condition>();
+			for (Condition condition : conditions) {
+				if (condition.isIndexOnly()) {
+					mask.or(condition.select(from, to));
+				} else {
+					remaining.add(condition);
+				}
+			}
+			if (remaining.size() == conditions.length) {
+				return this;
+			}
+			return new MaskedRule<D>(from, mask, new AnyConditionRule<D>(remaining.toArray(new Condition[remaining.size()]), editor));
+		}
+	}
+
+	/**
+	 * A {@link AnyConditionRule} whose index only conditions have been
+	 * selected for a range of indexes.
+	 */
+	private static final class MaskedRule<D> extends Rule<D> {
+
+		private final int from;
+		private final BitSet mask;
+		private final AnyConditionRule<D> remaining;
+
+		private MaskedRule(int from, BitSet mask, AnyConditionRule<D> remaining) {
+			this.from = from;
+			this.mask = mask;
+			this.remaining = remaining;
+		}
+
+		@Override
+		void apply(long index, D dataItem) {
+			if (mask.get((int) (index - from))) {
+				remaining.editor.edit(index, dataItem);
+			} else {
+				remaining.apply(index, dataItem);
+			}
+		}
+	}
+
+	/**
+	 * A run of {@link AnyConditionRule}s that each check the same property
+	 * for equality with a different value. Only values whose
+	 * <code>equals</code> and <code>hashCode</code> are known to agree (and to
+	 * never equal a value of another type) are dispatched on, so a look up
+	 * matches exactly the rules that checking each condition in turn would.
+	 */
+	private static final class ValueDispatchRule<D> extends Rule<D> {
+
+		private static final Object NULL_KEY = new Object();
+
+		private final ValueEqualsCondition reader;
+		private final Editor[] editors;
+		private final Map<Object, int[]> positions;
+
+		private ValueDispatchRule(ValueEqualsCondition reader, List<Rule<D>> rules) {
+			this.reader = reader;
+			this.editors = new Editor[rules.size()];
+			Map<Object, List<Integer>> positionsByValue = new HashMap<Object, List<Integer>>();
+			for (int i = 0; i < editors.length; i++) {
+				AnyConditionRule<D> rule = (AnyConditionRule<D>) rules.get(i);
+				editors[i] = rule.editor;
+				Object key = key(((ValueEqualsCondition) rule.conditions[0]).getValueToMatch());
+				positionsByValue.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(i);
+			}
+			this.positions = new HashMap<Object, int[]>();
+			for (Map.Entry<Object, List<Integer>> entry : positionsByValue.entrySet()) {
+				positions.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+			}
+		}
+
+		/**
+		 * @return the condition of the passed in rule if it can be part of a
+		 *         dispatch, or null.
+		 */
+		private static ValueEqualsCondition dispatchableCondition(Rule<?> rule) {
+			if (!(rule instanceof AnyConditionRule)) {
+				return null;
+			}
+			Condition[] conditions = ((AnyConditionRule<?>) rule).conditions;
+			if (conditions.length != 1 || conditions[0].getClass() != ValueEqualsCondition.class) {
+				return null;
+			}
+			ValueEqualsCondition condition = (ValueEqualsCondition) conditions[0];
+			return hasWellBehavedEquality(condition.getValueToMatch()) ? condition : null;
+		}
+
+		private static boolean hasWellBehavedEquality(Object value) {
+			if (value == null) {
+				return true;
+			}
+			Class<?> type = value.getClass();
+			return type == String.class || type == Integer.class || type == Long.class || type == Short.class
+					|| type == Byte.class || type == Character.class || type == Boolean.class || type == Double.class
+					|| type == Float.class || value instanceof Enum;
+		}
+
+		private static Object key(Object value) {
+			return value == null ? NULL_KEY : value;
+		}
+
+		@Override
+		void apply(long index, D dataItem) {
+			int next = 0;
+			while (next < editors.length) {
+				int position = firstMatch(reader.getPropertyValue(dataItem), next);
+				if (position < 0) {
+					return;
+				}
+				editors[position].edit(index, dataItem);
+				next = position + 1;
+			}
+		}
+
+		/**
+		 * @return the position of the first rule at or after the passed in
+		 *         position that matches the value, or -1.
+		 */
+		private int firstMatch(Object value, int from) {
+			if (!hasWellBehavedEquality(value)) {
+				// None of the dispatched values can equal a value of any other type
+				return -1;
+			}
+			int[] matching = positions.get(key(value));
+			if (matching != null) {
+				for (int position : matching) {
+					if (position >= from) {
+						return position;
+					}
+				}
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * Any other {@link Edit}, which is called as it would be by the
+	 * {@link SimpleDataEditor}.
+	 */
+	private static final class EditRule<D> extends Rule<D> {
+
+		private final Edit<D> edit;
+
+		private EditRule(Edit<D> edit) {
+			this.edit = edit;
+		}
+
+		@Override
+		void apply(long index, D dataItem) {
+			if (edit.isValid(index, dataItem)) {
+				edit.edit(index, dataItem);
+			}
+		}
+	}
+}
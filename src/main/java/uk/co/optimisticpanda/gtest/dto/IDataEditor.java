@@ -48,4 +48,23 @@ public interface IDataEditor<D> {
 	 *            the dto to apply the rule(s) to.
 	 */
 	public D edit(int index, D dataItem);
+
+	/**
+	 * Apply one or more rules with an index that may be beyond
+	 * {@link Integer#MAX_VALUE}, for very large or unbounded data sets. By
+	 * default indexes in the range of an int are passed on to
+	 * {@link #edit(int, Object)}.
+	 * 
+	 * @param index
+	 *            the index of the dto
+	 * @param dataItem
+	 *            the dto to apply the rule(s) to.
+	 * @return the edited dto
+	 * @throws ArithmeticException
+	 *             if this editor only supports int indexes and the index is
+	 *             out of that range
+	 */
+	default D edit(long index, D dataItem) {
+		return edit(Math.toIntExact(index), dataItem);
+	}
 }
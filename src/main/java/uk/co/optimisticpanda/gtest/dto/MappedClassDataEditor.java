@@ -15,8 +15,19 @@
  */
 package uk.co.optimisticpanda.gtest.dto;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.RowReadCache;
 import uk.co.optimisticpanda.gtest.dto.rule.Edit;
 import uk.co.optimisticpanda.gtest.dto.util.FunctionUtils;
 import uk.co.optimisticpanda.gtest.dto.util.MapOfLists;
@@ -24,12 +35,26 @@ import uk.co.optimisticpanda.gtest.dto.util.MapOfLists;
 /**
  * A {@link IDataEditor} that can be used to edit multiple types of dto. Rules
  * are keyed on the class of the dto that its is applicable for.
+ * <p>
+ * A dto is edited by the rules registered against its class and against any
+ * of its superclasses or interfaces, so subclasses and proxies pick up the
+ * rules of the classes they extend. Rules for interfaces are applied first,
+ * then rules for classes from the most general down to the dto's own class,
+ * so that the most specific class has the last word. The rules that
+ * apply to each concrete class are worked out the first time a dto of that
+ * class is seen and are then reused until another rule is added.
+ * </p>
  * 
  * @author Andy Lee
  */
-public class MappedClassDataEditor implements IDataEditor<Object> {
+public class MappedClassDataEditor implements IDataEditor<Object>, AutoCloseable {
 
 	MapOfLists<Class<?>, Edit<? extends Object>> map = new MapOfLists<Class<?>, Edit<? extends Object>>();
+	private boolean cachingReads;
+	private ForkJoinPool pool;
+	private ForkJoinPool ownedPool;
+	private boolean groupingByType;
+	private volatile ClassValue<List<Edit<? extends Object>>> resolvedEdits = newResolver();
 
 	/**
 	 * Create a new MappedClassDataEditor
@@ -38,6 +63,88 @@ public class MappedClassDataEditor implements IDataEditor<Object> {
 		//do nothing apart from instantiation
 	}
 
+	/**
+	 * Cache property reads for each dto while its rules are applied. Only use
+	 * this when every rule changes the dto through
+	 * {@link uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessSupport}.
+	 * 
+	 * @see RowReadCache
+	 * @return this for chaining.
+	 */
+	public MappedClassDataEditor cachingReads() {
+		this.cachingReads = true;
+		return this;
+	}
+
+	/**
+	 * Edit lists on a new {@link ForkJoinPool} with the given parallelism.
+	 * The pool belongs to this editor, which should be closed once it is no
+	 * longer needed.
+	 * 
+	 * @see #inParallel(ForkJoinPool)
+	 * @see #close()
+	 * @param parallelism
+	 *            the number of threads to edit on
+	 * @return this for chaining.
+	 */
+	public MappedClassDataEditor inParallel(int parallelism) {
+		ForkJoinPool created = new ForkJoinPool(parallelism);
+		inParallel(created);
+		this.ownedPool = created;
+		return this;
+	}
+
+	/**
+	 * Edit lists on the passed in {@link ForkJoinPool}. The list is split
+	 * into ranges of indexes and each dto is still edited with its own index,
+	 * but dtos are edited in no particular order and from many threads at
+	 * once, so every condition and editor added must be thread safe. The pool
+	 * still belongs to the caller and is not shut down by {@link #close()}.
+	 * 
+	 * @param pool
+	 *            the pool to edit on
+	 * @return this for chaining.
+	 */
+	public MappedClassDataEditor inParallel(ForkJoinPool pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException("A pool is required to edit in parallel");
+		}
+		close();
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Shut down the pool created by {@link #inParallel(int)}, if there is
+	 * one, after which lists are edited one dto after another again.
+	 */
+	@Override
+	public void close() {
+		if (ownedPool != null) {
+			ownedPool.shutdown();
+			if (pool == ownedPool) {
+				pool = null;
+			}
+			ownedPool = null;
+		}
+	}
+
+	/**
+	 * Edit lists one type at a time. The dtos in a list are grouped by class,
+	 * keeping their indexes, and the rules for each class are applied to its
+	 * whole group before moving on to the next, which keeps the same rules in
+	 * use for as long as possible on lists that mix many types. The list
+	 * itself is not reordered, but dtos are no longer edited in list order,
+	 * so editors that depend on the order they are called in will behave
+	 * differently. {@link #getEdits(Object)} is called once per group.
+	 * 
+	 * @return this for chaining.
+	 */
+	public MappedClassDataEditor groupingByType() {
+		this.groupingByType = true;
+		return this;
+	}
+
 	/**
 	 * see {@link IDataEditor#edit(List)}
 	 * 
@@ -45,6 +152,14 @@ public class MappedClassDataEditor implements IDataEditor<Object> {
 	 *            the collection of dtos to apply the rules to.
 	 */
 	public void edit(List<Object> testData) {
+		if (groupingByType) {
+			editGroupedByType(testData);
+			return;
+		}
+		if (pool != null) {
+			ParallelEdits.edit(pool, testData, (item, index) -> edit(index, item));
+			return;
+		}
 		testData.stream()
 					.map(FunctionUtils.indexed())
 					.forEach(i -> edit(i.index, i.item));
@@ -58,13 +173,66 @@ public class MappedClassDataEditor implements IDataEditor<Object> {
 	 * @param dataItem
 	 *            the dto to apply the rule to.
 	 */
-	@SuppressWarnings("unchecked")
 	public Object edit(int index, Object dataItem) {
-		List<Edit<? extends Object>> rules = getEdits(dataItem);
-		rules.stream()
-			.map(r -> ((Edit<Object>) r))
-			.filter(r -> r.isValid(index, dataItem))
-			.forEach(r-> r.edit(index, dataItem));
+		return edit(getEdits(dataItem), index, dataItem);
+	}
+
+	/**
+	 * see {@link IDataEditor#edit(long, Object)}
+	 * 
+	 * @param index
+	 *            the index of the dto, which may be beyond the range of an int
+	 * @param dataItem
+	 *            the dto to apply the rule to.
+	 */
+	@Override
+	public Object edit(long index, Object dataItem) {
+		if (index == (int) index) {
+			return edit((int) index, dataItem);
+		}
+		return edit(getEdits(dataItem), index, dataItem);
+	}
+
+	private void editGroupedByType(List<Object> testData) {
+		List<Object> items = testData instanceof RandomAccess ? testData : new ArrayList<Object>(testData);
+		Map<Class<?>, IntStream.Builder> groups = new LinkedHashMap<Class<?>, IntStream.Builder>();
+		for (int index = 0; index < items.size(); index++) {
+			groups.computeIfAbsent(items.get(index).getClass(), type -> IntStream.builder()).add(index);
+		}
+		for (IntStream.Builder group : groups.values()) {
+			int[] indexes = group.build().toArray();
+			List<Edit<? extends Object>> rules = getEdits(items.get(indexes[0]));
+			if (rules.isEmpty()) {
+				continue;
+			}
+			if (pool == null) {
+				for (int index : indexes) {
+					edit(rules, index, items.get(index));
+				}
+			} else {
+				pool.submit(() -> IntStream.of(indexes).parallel().forEach(index -> edit(rules, index, items.get(index)))).join();
+			}
+		}
+	}
+
+	@SuppressWarnings("try")
+	private Object edit(List<Edit<? extends Object>> rules, long index, Object dataItem) {
+		if (!cachingReads) {
+			return applyEdits(rules, index, dataItem);
+		}
+		try (RowReadCache row = RowReadCache.open(dataItem)) {
+			return applyEdits(rules, index, dataItem);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object applyEdits(List<Edit<? extends Object>> rules, long index, Object dataItem) {
+		for (int i = 0; i < rules.size(); i++) {
+			Edit<Object> rule = (Edit<Object>) rules.get(i);
+			if (rule.isValid(index, dataItem)) {
+				rule.edit(index, dataItem);
+			}
+		}
 		return dataItem;
 	}
 
@@ -74,10 +242,10 @@ public class MappedClassDataEditor implements IDataEditor<Object> {
 	 * 
 	 * @param dataItem
 	 *            the dto that the returned rules will be applicable for.
-	 * @return The applicable rules for this dto.
+	 * @return The applicable rules for this dto, which may be empty.
 	 * */
 	protected List<Edit<? extends Object>> getEdits(Object dataItem) {
-		return map.get(dataItem.getClass());
+		return resolvedEdits.get(dataItem.getClass());
 	}
 
 	/**
@@ -90,5 +258,56 @@ public class MappedClassDataEditor implements IDataEditor<Object> {
 	 */
 	public <D> void addEditForClass(Class<D> clazz, Edit<D> edit) {
 		map.putA(clazz, edit);
+		resolvedEdits = newResolver();
+	}
+
+	private ClassValue<List<Edit<? extends Object>>> newResolver() {
+		return new ClassValue<List<Edit<? extends Object>>>() {
+			@Override
+			protected List<Edit<? extends Object>> computeValue(Class<?> type) {
+				return resolve(type);
+			}
+		};
+	}
+
+	private List<Edit<? extends Object>> resolve(Class<?> type) {
+		List<Edit<? extends Object>> rules = new ArrayList<Edit<? extends Object>>();
+		for (Class<?> applicableType : generalToSpecific(type)) {
+			List<Edit<? extends Object>> registered = map.get(applicableType);
+			if (registered != null) {
+				rules.addAll(registered);
+			}
+		}
+		return Collections.unmodifiableList(Arrays.asList(rules.toArray(new Edit<?>[rules.size()])));
+	}
+
+	/**
+	 * @return the interfaces of the passed in type followed by its
+	 *         superclasses and then the type itself. Each interface comes
+	 *         after the interfaces it extends.
+	 */
+	private static Set<Class<?>> generalToSpecific(Class<?> type) {
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			classes.add(0, current);
+		}
+		Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+		for (Class<?> current : classes) {
+			for (Class<?> interfaceType : current.getInterfaces()) {
+				addInterface(interfaceType, types);
+			}
+		}
+		types.addAll(classes);
+		return types;
+	}
+
+	private static void addInterface(Class<?> interfaceType, Set<Class<?>> types) {
+		if (types.contains(interfaceType)) {
+			return;
+		}
+		for (Class<?> superInterface : interfaceType.getInterfaces()) {
+			addInterface(superInterface, types);
+		}
+		types.add(interfaceType);
 	}
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Edits a list of dtos on a {@link ForkJoinPool}. The list is split into
+ * ranges of indexes, so each dto is edited with its own position in the list
+ * no matter which thread edits it.
+ *
+ * @author Andy Lee
+ */
+final class ParallelEdits {
+
+	private ParallelEdits() {
+		// static helper
+	}
+
+	/**
+	 * @param pool
+	 *            the pool to edit on
+	 * @param testData
+	 *            the dtos to edit. Lists without random access are copied
+	 *            first.
+	 * @param edit
+	 *            called with each dto and its index
+	 */
+	static <D> void edit(ForkJoinPool pool, List<D> testData, ObjIntConsumer<D> edit) {
+		List<D> items = testData instanceof RandomAccess ? testData : new ArrayList<D>(testData);
+		pool.submit(() -> IntStream.range(0, items.size()).parallel().forEach(i -> edit.accept(items.get(i), i))).join();
+	}
+}
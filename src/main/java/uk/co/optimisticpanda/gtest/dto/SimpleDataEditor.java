@@ -20,21 +20,30 @@ import static uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.indexed;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.RowReadCache;
 import uk.co.optimisticpanda.gtest.dto.rule.Edit;
 /**
  * <p>
  * This is a basic {@link IDataEditor} that takes a list of dtos and then calls
  * {@link IDataEditor#edit(int, Object)} on each item passed in.
  * </p>
+ * <p>
+ * Lists are edited one dto after another unless {@link #inParallel(int)} has
+ * been called.
+ * </p>
  * 
  * @author Andy Lee
  * @param <D>
  *            The type of dto that this will edit.
  */
-public class SimpleDataEditor<D> implements IDataEditor<D> {
+public class SimpleDataEditor<D> implements IDataEditor<D>, AutoCloseable {
 
 	private final List<Edit<D>> edits;
+	private boolean cachingReads;
+	private ForkJoinPool pool;
+	private ForkJoinPool ownedPool;
 
 	/**
 	 * Create a new SimpleDataEditor with no rules.
@@ -52,6 +61,86 @@ public class SimpleDataEditor<D> implements IDataEditor<D> {
 		this.edits.add(edit);
 		return this;
 	}
+
+	/**
+	 * Cache property reads for each dto while its rules are applied, so that
+	 * conditions and editors that look at the same property only read it
+	 * once. Only use this when every rule changes the dto through
+	 * {@link uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessSupport}.
+	 * 
+	 * @see RowReadCache
+	 * @return this for chaining.
+	 */
+	public SimpleDataEditor<D> cachingReads() {
+		this.cachingReads = true;
+		return this;
+	}
+
+	/**
+	 * Edit lists on a new {@link ForkJoinPool} with the given parallelism.
+	 * The pool belongs to this editor, which should be closed once it is no
+	 * longer needed.
+	 * 
+	 * @see #inParallel(ForkJoinPool)
+	 * @see #close()
+	 * @param parallelism
+	 *            the number of threads to edit on
+	 * @return this for chaining.
+	 */
+	public SimpleDataEditor<D> inParallel(int parallelism) {
+		ForkJoinPool created = new ForkJoinPool(parallelism);
+		inParallel(created);
+		this.ownedPool = created;
+		return this;
+	}
+
+	/**
+	 * Edit lists on the passed in {@link ForkJoinPool}. The list is split
+	 * into ranges of indexes and each dto is still edited with its own index,
+	 * but dtos are edited in no particular order and from many threads at
+	 * once, so every condition and editor added must be thread safe. The pool
+	 * still belongs to the caller and is not shut down by {@link #close()}.
+	 * 
+	 * @param pool
+	 *            the pool to edit on
+	 * @return this for chaining.
+	 */
+	public SimpleDataEditor<D> inParallel(ForkJoinPool pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException("A pool is required to edit in parallel");
+		}
+		close();
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Shut down the pool created by {@link #inParallel(int)}, if there is
+	 * one, after which lists are edited one dto after another again. Editors
+	 * already compiled from this one share the pool, so must not edit lists
+	 * once this has been closed.
+	 */
+	@Override
+	public void close() {
+		if (ownedPool != null) {
+			ownedPool.shutdown();
+			if (pool == ownedPool) {
+				pool = null;
+			}
+			ownedPool = null;
+		}
+	}
+
+	/**
+	 * Flatten the edits added so far into a {@link CompiledDataEditor} that
+	 * applies them with the same semantics but without per item stream
+	 * overhead.
+	 * 
+	 * @return a compiled snapshot of this editor's rules
+	 */
+	public CompiledDataEditor<D> compile() {
+		return new CompiledDataEditor<D>(edits, cachingReads, pool);
+	}
 	
 	/**
 	 * see {@link IDataEditor#edit(List)}
@@ -60,6 +149,10 @@ public class SimpleDataEditor<D> implements IDataEditor<D> {
 	 *            the collection of dtos to apply the rules to.
 	 */
 	public void edit(List<D> testData) {
+		if (pool != null) {
+			ParallelEdits.edit(pool, testData, (item, index) -> edit(index, item));
+			return;
+		}
 		testData.stream().map(indexed()).forEach(i -> edit(i.index, i.item));
 	}
 
@@ -72,6 +165,37 @@ public class SimpleDataEditor<D> implements IDataEditor<D> {
 	 *            the dto to apply the rule to.
 	 */
 	public D edit(int index, D dataItem) {
+		return editWith(index, dataItem);
+	}
+
+	/**
+	 * see {@link IDataEditor#edit(long, Object)}. Indexes in the range of an
+	 * int are edited by {@link #edit(int, Object)}.
+	 * 
+	 * @param index
+	 *            the index of the dto, which may be beyond the range of an int
+	 * @param dataItem
+	 *            the dto to apply the rule to.
+	 */
+	@Override
+	public D edit(long index, D dataItem) {
+		if (index == (int) index) {
+			return edit((int) index, dataItem);
+		}
+		return editWith(index, dataItem);
+	}
+
+	@SuppressWarnings("try")
+	private D editWith(long index, D dataItem) {
+		if (!cachingReads) {
+			return applyEdits(index, dataItem);
+		}
+		try (RowReadCache row = RowReadCache.open(dataItem)) {
+			return applyEdits(index, dataItem);
+		}
+	}
+
+	private D applyEdits(long index, D dataItem) {
 		edits.stream()
 				.filter(r -> r.isValid(index, dataItem))
 				.forEach(r-> r.edit(index, dataItem));
@@ -19,6 +19,7 @@ import ognl.DefaultMemberAccess;
 import ognl.OgnlContext;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessSupport;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.handle.HandlePropertyAccessFactory;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl.OgnlPropertyAccessFactory;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.rflc.ReflectionPropertyAccessFactory;
 
@@ -46,11 +47,25 @@ public enum TestUtilsContext {
 	 * {@link OgnlPropertyAccessFactory}
 	 */
 	public static void useOgnl() {
+		useOgnl(false);
+	}
+
+	/**
+	 * Helper method that configures the {@link PropertyAccessSupport} to use
+	 * an {@link OgnlPropertyAccessFactory} that compiles its expressions into
+	 * generated accessor code. Expressions that ognl cannot compile are
+	 * interpreted as they would be by {@link #useOgnl()}.
+	 */
+	public static void useCompiledOgnl() {
+		useOgnl(true);
+	}
+
+	private static void useOgnl(boolean compileExpressions) {
 		clearContext();
 		OgnlContext context = new OgnlContext();
 		context.setMemberAccess(new DefaultMemberAccess(true));
 		setOgnlContext(context);
-		setPropertyAccessFactory(new OgnlPropertyAccessFactory());
+		setPropertyAccessFactory(new OgnlPropertyAccessFactory(compileExpressions));
 	}
 
 	/**
@@ -62,6 +77,15 @@ public enum TestUtilsContext {
 		setPropertyAccessFactory(new ReflectionPropertyAccessFactory());
 	}
 
+	/**
+	 * Helper method that configures the {@link PropertyAccessSupport} to use
+	 * {@link HandlePropertyAccessFactory}.
+	 */
+	public static void useHandles() {
+		clearContext();
+		setPropertyAccessFactory(new HandlePropertyAccessFactory());
+	}
+
 	/**
 	 * Clear out this context.
 	 * */
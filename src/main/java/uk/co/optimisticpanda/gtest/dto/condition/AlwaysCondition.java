@@ -15,6 +15,8 @@
  */
 package uk.co.optimisticpanda.gtest.dto.condition;
 
+import java.util.BitSet;
+
 /**
  * A Condition that returns true in all cases.
  * 
@@ -35,6 +37,23 @@ enum AlwaysCondition implements Condition {
 		return true;
 	}
 
+	@Override
+	public boolean isValid(long index, Object dataItem) {
+		return true;
+	}
+
+	@Override
+	public boolean isIndexOnly() {
+		return true;
+	}
+
+	@Override
+	public BitSet select(int from, int to) {
+		BitSet selected = new BitSet(to - from);
+		selected.set(0, to - from);
+		return selected;
+	}
+
 	/**
 	 * A human readable representation of this {@link Condition}.
 	 */
@@ -16,6 +16,7 @@
 package uk.co.optimisticpanda.gtest.dto.condition;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -48,10 +49,6 @@ class CombinedCondition implements Condition {
 		 * {@link CombinedCondition} matcher to return true.
 		 */
 		OR;
-
-		private boolean getDefaultResultValue() {
-			return this == AND;
-		}
 	}
 
 	private final List<Condition> conditions;
@@ -72,25 +69,93 @@ class CombinedCondition implements Condition {
 	}
 
 	/**
+	 * Conditions are checked in the order they were declared, and checking stops
+	 * as soon as the result is known.
+	 * 
 	 * @see uk.co.optimisticpanda.gtest.dto.condition.Condition#isValid(int,
 	 *      java.lang.Object)
 	 */
 	@Override
 	public <D> boolean isValid(int index, D dataItem) {
-		boolean result = operation.getDefaultResultValue();
+		return combine(index, dataItem);
+	}
+
+	@Override
+	public <D> boolean isValid(long index, D dataItem) {
+		if (index == (int) index) {
+			return isValid((int) index, dataItem);
+		}
+		return combine(index, dataItem);
+	}
+
+	private <D> boolean combine(long index, D dataItem) {
+		switch (operation) {
+		case AND:
+			for (Condition condition : conditions) {
+				if (!condition.isValid(index, dataItem)) {
+					return false;
+				}
+			}
+			return true;
+		case OR:
+			for (Condition condition : conditions) {
+				if (condition.isValid(index, dataItem)) {
+					return true;
+				}
+			}
+			return false;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	/**
+	 * @return the wrapped conditions, in the order they were declared.
+	 */
+	List<Condition> getConditions() {
+		return conditions;
+	}
+
+	/**
+	 * @return how the wrapped conditions are combined.
+	 */
+	BoolOp getOperation() {
+		return operation;
+	}
+
+	/**
+	 * @return true if every wrapped condition is index only.
+	 */
+	@Override
+	public boolean isIndexOnly() {
 		for (Condition condition : conditions) {
+			if (!condition.isIndexOnly()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public BitSet select(int from, int to) {
+		if (!isIndexOnly()) {
+			throw new UnsupportedOperationException("Condition depends on the dto so cannot be selected by index: " + this);
+		}
+		Iterator<Condition> iterator = conditions.iterator();
+		BitSet selected = iterator.next().select(from, to);
+		while (iterator.hasNext()) {
 			switch (operation) {
 			case AND:
-				result &= condition.isValid(index, dataItem);
+				selected.and(iterator.next().select(from, to));
 				break;
 			case OR:
-				result |= condition.isValid(index, dataItem);
+				selected.or(iterator.next().select(from, to));
 				break;
 			default:
 				throw new IllegalStateException();
 			}
 		}
-		return result;
+		return selected;
 	}
 
 	/**
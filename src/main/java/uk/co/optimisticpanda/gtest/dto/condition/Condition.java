@@ -18,8 +18,20 @@ package uk.co.optimisticpanda.gtest.dto.condition;
 import static uk.co.optimisticpanda.gtest.dto.condition.CombinedCondition.BoolOp.AND;
 import static uk.co.optimisticpanda.gtest.dto.condition.CombinedCondition.BoolOp.OR;
 
+import java.util.BitSet;
+
 /**
  * A check to see if a rule should fire or not
+ * <p>
+ * Conditions used by a data editor that edits
+ * {@link uk.co.optimisticpanda.gtest.dto.SimpleDataEditor#inParallel(int) in
+ * parallel} are checked from many threads at once. The conditions in
+ * {@link Conditions} hold no state that changes while checking, so are safe
+ * to use this way. The only exception is the order an
+ * {@link Conditions#optimise(Condition) optimised} condition checks its
+ * parts in, which is worked out from approximate counts but never changes
+ * the result.
+ * </p>
  * 
  * @author Andy Lee
  */
@@ -27,6 +39,55 @@ public interface Condition {
 
 	<D> boolean isValid(int index, D dataItem);
 
+	/**
+	 * Check a dto at an index that may be beyond {@link Integer#MAX_VALUE},
+	 * for very large or unbounded data sets. Indexes in the range of an int
+	 * are passed on to {@link #isValid(int, Object)}. Conditions that look at
+	 * the index, or that ignore it, override this to accept any index.
+	 * 
+	 * @throws ArithmeticException
+	 *             if this condition only supports int indexes and the index is
+	 *             out of that range
+	 */
+	default <D> boolean isValid(long index, D dataItem) {
+		return isValid(Math.toIntExact(index), dataItem);
+	}
+
+	/**
+	 * @return whether this condition depends on the index alone and never
+	 *         looks at the dto. Only conditions that are index only can be
+	 *         {@link #select(int, int) selected} ahead of time.
+	 */
+	default boolean isIndexOnly() {
+		return false;
+	}
+
+	/**
+	 * Work out, without looking at any dtos, which indexes in a range this
+	 * condition is valid for.
+	 * 
+	 * @param from
+	 *            the first index of the range, inclusive
+	 * @param to
+	 *            the last index of the range, exclusive
+	 * @return a set where bit <code>i - from</code> is set if the condition is
+	 *         valid at index <code>i</code>
+	 * @throws UnsupportedOperationException
+	 *             if this condition is not {@link #isIndexOnly() index only}
+	 */
+	default BitSet select(int from, int to) {
+		if (!isIndexOnly()) {
+			throw new UnsupportedOperationException("Condition depends on the dto so cannot be selected by index: " + this);
+		}
+		BitSet selected = new BitSet(to - from);
+		for (int index = from; index < to; index++) {
+			if (isValid(index, null)) {
+				selected.set(index - from);
+			}
+		}
+		return selected;
+	}
+
 	default Condition and(Condition condition){
 		return new CombinedCondition(AND, this, condition);
 	}
@@ -21,6 +21,21 @@ public class Conditions {
 	public static Condition everyNth(int n) {
 		return new NthPlaceCondition(n);
 	}
+
+	/**
+	 * Wrap the AND and OR combinations within a condition so that their parts
+	 * are checked cheapest and most decisive first. Index checks are tried
+	 * before dto reads, and the order adapts to how often each part decides
+	 * the result. The results are the same as the passed in condition's as
+	 * long as its parts have no side effects.
+	 * 
+	 * @param condition
+	 *            the condition to optimise
+	 * @return an equivalent condition
+	 */
+	public static Condition optimise(Condition condition) {
+		return OptimisedCondition.optimise(condition);
+	}
 	
 	public static class IndexConditionBuilder{
 		public Condition is(int indexToMatchOn){
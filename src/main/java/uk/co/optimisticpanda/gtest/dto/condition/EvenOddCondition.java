@@ -15,6 +15,8 @@
  */
 package uk.co.optimisticpanda.gtest.dto.condition;
 
+import java.util.BitSet;
+
 /**
  * A Condition that returns true on odd or even indexes
  * 
@@ -35,6 +37,18 @@ enum EvenOddCondition implements Condition {
 	 *      java.lang.Object)
 	 */
 	public boolean isValid(int index, Object dataItem) {
+		return matches(index, dataItem);
+	}
+
+	@Override
+	public boolean isValid(long index, Object dataItem) {
+		if (index == (int) index) {
+			return isValid((int) index, dataItem);
+		}
+		return matches(index, dataItem);
+	}
+
+	private boolean matches(long index, Object dataItem) {
 		switch (this) {
 		case EVEN:
 			return index % 2 == 0;
@@ -45,6 +59,25 @@ enum EvenOddCondition implements Condition {
 		}
 	}
 
+	@Override
+	public boolean isIndexOnly() {
+		return true;
+	}
+
+	/**
+	 * Sets every other bit, starting from the first matching index in the
+	 * range.
+	 */
+	@Override
+	public BitSet select(int from, int to) {
+		BitSet selected = new BitSet(to - from);
+		int first = isValid(from, null) ? from : from + 1;
+		for (int index = first; index < to; index += 2) {
+			selected.set(index - from);
+		}
+		return selected;
+	}
+
 	/**
 	 * A human readable representation of this {@link Condition}.
 	 */
@@ -1,5 +1,7 @@
 package uk.co.optimisticpanda.gtest.dto.condition;
 
+import java.util.BitSet;
+
 /**
  * A Condition that returns true on if the dto is at a specified index
  * 
@@ -22,9 +24,35 @@ public class IndexCondition implements Condition {
 	 *      java.lang.Object)
 	 */
 	public boolean isValid(int index, Object dataItem) {
+		return matches(index);
+	}
+
+	@Override
+	public boolean isValid(long index, Object dataItem) {
+		if (index == (int) index) {
+			return isValid((int) index, dataItem);
+		}
+		return matches(index);
+	}
+
+	private boolean matches(long index) {
 		return index == indexToMatchOn;
 	}
 
+	@Override
+	public boolean isIndexOnly() {
+		return true;
+	}
+
+	@Override
+	public BitSet select(int from, int to) {
+		BitSet selected = new BitSet(to - from);
+		if (indexToMatchOn >= from && indexToMatchOn < to) {
+			selected.set(indexToMatchOn - from);
+		}
+		return selected;
+	}
+
 	/**
 	 * A human readable representation of this {@link Condition}.
 	 */
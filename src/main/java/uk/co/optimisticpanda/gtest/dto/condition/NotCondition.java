@@ -1,5 +1,7 @@
 package uk.co.optimisticpanda.gtest.dto.condition;
 
+import java.util.BitSet;
+
 /**
  * This condition wraps an {@link Condition} and returns the negation of its
  * {@link Condition#isValid(int, Object)} method.
@@ -26,9 +28,40 @@ class NotCondition implements Condition {
 	 */
 	@Override
 	public <D> boolean isValid(int index, D dataItem) {
+		return negate(index, dataItem);
+	}
+
+	@Override
+	public <D> boolean isValid(long index, D dataItem) {
+		if (index == (int) index) {
+			return isValid((int) index, dataItem);
+		}
+		return negate(index, dataItem);
+	}
+
+	private <D> boolean negate(long index, D dataItem) {
 		return !condition.isValid(index, dataItem);
 	}
 
+	/**
+	 * @return the condition that this reverses.
+	 */
+	Condition getCondition() {
+		return condition;
+	}
+
+	@Override
+	public boolean isIndexOnly() {
+		return condition.isIndexOnly();
+	}
+
+	@Override
+	public BitSet select(int from, int to) {
+		BitSet selected = condition.select(from, to);
+		selected.flip(0, to - from);
+		return selected;
+	}
+
 	/**
 	 * A human readable representation of this {@link Condition}.
 	 */
@@ -15,6 +15,8 @@
  */
 package uk.co.optimisticpanda.gtest.dto.condition;
 
+import java.util.BitSet;
+
 /**
  * A condition that returns true on every nth item.
  * @author Andy Lee
@@ -35,8 +37,38 @@ class NthPlaceCondition implements Condition{
      */
     @Override
     public <D> boolean isValid(int index, D dataItem) {
+        return isNth(index);
+    }
+
+    @Override
+    public <D> boolean isValid(long index, D dataItem) {
+        if (index == (int) index) {
+            return isValid((int) index, dataItem);
+        }
+        return isNth(index);
+    }
+
+    private boolean isNth(long index) {
         return (index %n  == 0);
     }
+
+    @Override
+    public boolean isIndexOnly() {
+        return true;
+    }
+
+    /**
+     * Sets every nth bit, starting from the first multiple of n in the range.
+     */
+    @Override
+    public BitSet select(int from, int to) {
+        BitSet selected = new BitSet(to - from);
+        int step = Math.abs(n);
+        for (long index = from + Math.floorMod(-from, step); index < to; index += step) {
+            selected.set((int) (index - from));
+        }
+        return selected;
+    }
     
     /**
 	 * A human readable representation of this {@link Condition}.
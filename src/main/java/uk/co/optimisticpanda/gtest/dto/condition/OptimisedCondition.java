@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.condition;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import uk.co.optimisticpanda.gtest.dto.condition.CombinedCondition.BoolOp;
+
+/**
+ * A {@link CombinedCondition} that checks its conditions cheapest and most
+ * decisive first.
+ * <p>
+ * Conditions start ordered by an estimated cost, where index checks are cheap
+ * and anything that reads the dto is expensive. Each time a condition is
+ * checked it is counted, as is each time it decides the result (fails for an
+ * AND, succeeds for an OR). Every {@value #REORDER_INTERVAL} checks the
+ * conditions are reordered by cost divided by how often they decide the
+ * result, and the counts are halved so that recent behaviour counts for more.
+ * </p>
+ * <p>
+ * The counts are updated without synchronisation, so when used from many
+ * threads they are approximate. That only affects the order conditions are
+ * checked in, never the result.
+ * </p>
+ *
+ * @author Andy Lee
+ */
+class OptimisedCondition implements Condition {
+
+	static final int REORDER_INTERVAL = 1024;
+
+	private static final int INDEX_COST = 1;
+	private static final int DTO_COST = 10;
+
+	private final CombinedCondition combined;
+	private final Condition[] conditions;
+	private final int[] costs;
+	private final boolean decisiveResult;
+	private final long[] checked;
+	private final long[] decided;
+	private long calls;
+	private volatile Integer[] order;
+
+	private OptimisedCondition(CombinedCondition combined, Condition[] conditions) {
+		this.combined = combined;
+		this.conditions = conditions;
+		this.decisiveResult = combined.getOperation() == BoolOp.OR;
+		this.costs = new int[conditions.length];
+		this.checked = new long[conditions.length];
+		this.decided = new long[conditions.length];
+		Integer[] initialOrder = new Integer[conditions.length];
+		for (int i = 0; i < conditions.length; i++) {
+			costs[i] = cost(conditions[i]);
+			initialOrder[i] = i;
+		}
+		Arrays.sort(initialOrder, Comparator.comparingInt(i -> costs[i]));
+		this.order = initialOrder;
+	}
+
+	/**
+	 * Replace every {@link CombinedCondition} within the passed in condition
+	 * with an {@link OptimisedCondition}.
+	 */
+	static Condition optimise(Condition condition) {
+		if (condition instanceof CombinedCondition) {
+			CombinedCondition combined = (CombinedCondition) condition;
+			List<Condition> children = combined.getConditions();
+			Condition[] optimised = new Condition[children.size()];
+			for (int i = 0; i < optimised.length; i++) {
+				optimised[i] = optimise(children.get(i));
+			}
+			return new OptimisedCondition(combined, optimised);
+		}
+		if (condition instanceof NotCondition) {
+			Condition inner = ((NotCondition) condition).getCondition();
+			Condition optimised = optimise(inner);
+			return optimised == inner ? condition : new NotCondition(optimised);
+		}
+		return condition;
+	}
+
+	/**
+	 * @see uk.co.optimisticpanda.gtest.dto.condition.Condition#isValid(int,
+	 *      java.lang.Object)
+	 */
+	@Override
+	public <D> boolean isValid(int index, D dataItem) {
+		return check(index, dataItem);
+	}
+
+	@Override
+	public <D> boolean isValid(long index, D dataItem) {
+		if (index == (int) index) {
+			return isValid((int) index, dataItem);
+		}
+		return check(index, dataItem);
+	}
+
+	private <D> boolean check(long index, D dataItem) {
+		boolean result = !decisiveResult;
+		for (int i : order) {
+			checked[i]++;
+			if (conditions[i].isValid(index, dataItem) == decisiveResult) {
+				decided[i]++;
+				result = decisiveResult;
+				break;
+			}
+		}
+		if (++calls % REORDER_INTERVAL == 0) {
+			reorder();
+		}
+		return result;
+	}
+
+	private void reorder() {
+		double[] scores = new double[conditions.length];
+		Integer[] newOrder = order.clone();
+		for (int i = 0; i < conditions.length; i++) {
+			scores[i] = costs[i] * (checked[i] + 1d) / (decided[i] + 1d);
+			checked[i] /= 2;
+			decided[i] /= 2;
+		}
+		Arrays.sort(newOrder, Comparator.comparingDouble(i -> scores[i]));
+		order = newOrder;
+	}
+
+	/**
+	 * @return the conditions in the order they are currently checked.
+	 */
+	List<Condition> getOrder() {
+		Integer[] current = order;
+		Condition[] ordered = new Condition[current.length];
+		for (int i = 0; i < current.length; i++) {
+			ordered[i] = conditions[current[i]];
+		}
+		return Arrays.asList(ordered);
+	}
+
+	@Override
+	public boolean isIndexOnly() {
+		return combined.isIndexOnly();
+	}
+
+	@Override
+	public BitSet select(int from, int to) {
+		return combined.select(from, to);
+	}
+
+	private static int cost(Condition condition) {
+		if (condition instanceof OptimisedCondition) {
+			int cost = 0;
+			for (int childCost : ((OptimisedCondition) condition).costs) {
+				cost += childCost;
+			}
+			return cost;
+		}
+		if (condition instanceof NotCondition) {
+			return cost(((NotCondition) condition).getCondition());
+		}
+		return condition.isIndexOnly() ? INDEX_COST : DTO_COST;
+	}
+
+	/**
+	 * A human readable representation of this {@link Condition}.
+	 */
+	@Override
+	public String toString() {
+		return "OPTIMISED " + combined;
+	}
+}
@@ -25,7 +25,7 @@ import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessSupport;
  * 
  * @author Andy Lee
  */
-class ValueEqualsCondition extends PropertyAccessSupport implements Condition {
+public class ValueEqualsCondition extends PropertyAccessSupport implements Condition {
 
 	private final Object valueToBeMatched;
 
@@ -55,6 +55,18 @@ class ValueEqualsCondition extends PropertyAccessSupport implements Condition {
 	 *      java.lang.Object)
 	 */
 	public <D> boolean isValid(int index, D dataItem) {
+		return matches(dataItem);
+	}
+
+	/**
+	 * The index is not used, so any index is accepted.
+	 */
+	@Override
+	public <D> boolean isValid(long index, D dataItem) {
+		return matches(dataItem);
+	}
+
+	private <D> boolean matches(D dataItem) {
 		Object propertyValue = getValue(dataItem);
 		if (valueToBeMatched == null) {
 			return propertyValue == null;
@@ -62,6 +74,25 @@ class ValueEqualsCondition extends PropertyAccessSupport implements Condition {
 		return valueToBeMatched.equals(propertyValue);
 	}
 
+	/**
+	 * @return the value that the property must equal for this condition to be
+	 *         valid.
+	 */
+	public Object getValueToMatch() {
+		return valueToBeMatched;
+	}
+
+	/**
+	 * Read the property that this condition checks.
+	 * 
+	 * @param dataItem
+	 *            the dto to read the property from.
+	 * @return the current value of the property.
+	 */
+	public Object getPropertyValue(Object dataItem) {
+		return getValue(dataItem);
+	}
+
 	/**
 	 * A human readable representation of this {@link Condition}.
 	 */
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
+
+/**
+ * Makes the index of the instance currently being generated available to the
+ * {@link Supplier}s registered in a {@link ValueGenerator}.
+ * <p>
+ * Suppliers that derive their value only from the index, using
+ * {@link #fromIndex(LongFunction)} or {@link #seeded(long, Function)}, produce
+ * exactly the same instance for an index however it is generated. That allows
+ * a single row of a data set to be regenerated with
+ * {@link InstanceGenerator#generate(long)}, or a data set to be split across
+ * workers, without generating the rows before it.
+ * </p>
+ * 
+ * @author Andy Lee
+ */
+public final class GenerationIndex {
+
+	private static final long NONE = -1;
+	private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[] { NONE });
+
+	private GenerationIndex() {
+		// static helper
+	}
+
+	/**
+	 * @return the index of the instance being generated on this thread
+	 * @throws IllegalStateException
+	 *             if this thread is not generating an indexed instance
+	 */
+	public static long current() {
+		long index = CURRENT.get()[0];
+		if (index == NONE) {
+			throw new IllegalStateException(
+					"No generation index is set. Generate with InstanceGenerator.generate(long) or a DtoGenerationEngine.");
+		}
+		return index;
+	}
+
+	/**
+	 * @return whether this thread is generating an indexed instance
+	 */
+	public static boolean isSet() {
+		return CURRENT.get()[0] != NONE;
+	}
+
+	/**
+	 * Run the body with the current index set on this thread, restoring the
+	 * previous index afterwards.
+	 * 
+	 * @param index
+	 *            the index of the instance being generated
+	 * @param body
+	 *            the generation to run
+	 * @return the result of the body
+	 */
+	public static <T> T at(long index, Supplier<T> body) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Index cannot be negative: " + index);
+		}
+		long[] current = CURRENT.get();
+		long previous = current[0];
+		current[0] = index;
+		try {
+			return body.get();
+		} finally {
+			current[0] = previous;
+		}
+	}
+
+	/**
+	 * @param function
+	 *            creates a value from the current index
+	 * @return a supplier whose value depends only on the current index
+	 */
+	public static <T> Supplier<T> fromIndex(LongFunction<T> function) {
+		return () -> function.apply(current());
+	}
+
+	/**
+	 * Create a supplier of random values that are repeatable per index. Each
+	 * call gets a new {@link SplittableRandom} seeded from the current index
+	 * and the salt, so different properties should use different salts to
+	 * avoid getting the same sequence.
+	 * 
+	 * @param salt
+	 *            distinguishes this supplier from others using the same index
+	 * @param function
+	 *            creates a value using the seeded random
+	 * @return a supplier whose value depends only on the current index and salt
+	 */
+	public static <T> Supplier<T> seeded(long salt, Function<SplittableRandom, T> function) {
+		return () -> function.apply(random(current(), salt));
+	}
+
+	/**
+	 * @param index
+	 *            the index of an instance
+	 * @param salt
+	 *            distinguishes this random from others using the same index
+	 * @return a random seeded from the index and salt
+	 */
+	public static SplittableRandom random(long index, long salt) {
+		return new SplittableRandom(index * SEED_MULTIPLIER + salt);
+	}
+}
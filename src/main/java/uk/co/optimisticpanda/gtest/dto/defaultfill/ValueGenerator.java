@@ -21,6 +21,8 @@ import static uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.Suppliers.of;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 
 import uk.co.optimisticpanda.gtest.dto.edit.Editor;
@@ -38,6 +40,17 @@ import uk.co.optimisticpanda.gtest.dto.edit.Editor;
  * <li>{@link Supplier#NOT_COVERED}
  * </ol>
  * </p>
+ * <p>
+ * The result of each look up is remembered per field and path, so repeated
+ * look ups for the same field are a single probe. Registering a generator or
+ * clearing forgets all remembered results.
+ * </p>
+ * <p>
+ * Generators are called from many threads at once when used by a parallel
+ * {@link uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.DtoGenerationEngine}
+ * and must be thread safe in that case. Generators should not be registered
+ * while generation is in progress.
+ * </p>
  * 
  * @author Andy Lee
  * */
@@ -47,6 +60,8 @@ public class ValueGenerator {
 	protected final Map<ClassPropertyNameKey, Supplier<?>> classAndPropertyNameAndTypeCache;
 	protected final Map<PropertyNameAndPropertyTypeKey, Supplier<?>> propertyNameAndTypeCache;
 	protected final Map<String, Supplier<?>> typeCache;
+	private final ConcurrentMap<Field, ConcurrentMap<String, Supplier<?>>> resolvedGenerators = new ConcurrentHashMap<>();
+	private volatile int modificationCount;
 
 	/**
 	 * A default constructor that initialises all the caches
@@ -70,6 +85,7 @@ public class ValueGenerator {
 	 * */
 	public void registerAPropertyDepthGenerator(String propertyDepth, Supplier<?> valueGen) {
 		propertyDepthCache.put(propertyDepth, of(valueGen));
+		modified();
 	}
 
 	/**
@@ -88,6 +104,7 @@ public class ValueGenerator {
 	public void registerAClassNamePropertyNameGenerator(Class<?> owningClass, String propertyName, Supplier<?> valueGenerator) {
 		ClassPropertyNameKey key = new ClassPropertyNameKey(owningClass, propertyName);
 		classAndPropertyNameAndTypeCache.put(key, of(valueGenerator));
+		modified();
 	}
 
 	/**
@@ -103,6 +120,7 @@ public class ValueGenerator {
 	public void registerAPropertyNameAndTypeGenerator(String propertyName, Class<?> propertyType, Supplier<?> valueGenerator) {
 		PropertyNameAndPropertyTypeKey key = new PropertyNameAndPropertyTypeKey(propertyName, propertyType);
 		propertyNameAndTypeCache.put(key, of(valueGenerator));
+		modified();
 	}
 
 	/**
@@ -133,6 +151,7 @@ public class ValueGenerator {
 		default:
 			throw new IllegalArgumentException("Case not known for:" + mode.name());
 		}
+		modified();
 	}
 
 	/** 
@@ -172,6 +191,19 @@ public class ValueGenerator {
 	 * 
 	 * */
 	public Supplier<?> lookUpGenerator(String path, Field field) {
+		ConcurrentMap<String, Supplier<?>> generatorsByPath = resolvedGenerators.get(field);
+		if (generatorsByPath == null) {
+			generatorsByPath = resolvedGenerators.computeIfAbsent(field, f -> new ConcurrentHashMap<>());
+		}
+		Supplier<?> valueGenerator = generatorsByPath.get(path);
+		if (valueGenerator == null) {
+			valueGenerator = resolveGenerator(path, field);
+			generatorsByPath.putIfAbsent(path, valueGenerator);
+		}
+		return valueGenerator;
+	}
+
+	private Supplier<?> resolveGenerator(String path, Field field) {
 		ValueGeneratorCacheKey key = new ValueGeneratorCacheKey(path, field);
 		
 		Supplier<?> valueGenerator = propertyDepthCache.get(key.getPropertyPath());
@@ -201,6 +233,25 @@ public class ValueGenerator {
 		classAndPropertyNameAndTypeCache.clear();
 		propertyNameAndTypeCache.clear();
 		typeCache.clear();
+		modified();
+	}
+
+	private void modified() {
+		resolvedGenerators.clear();
+		modificationCount++;
+	}
+
+	/**
+	 * Every call to a register method or to {@link #clear()} changes this count.
+	 * Anything that resolves generators up front (such as the plan built by an
+	 * InstanceGenerator) can compare it to see whether its resolution is stale.
+	 * Subclasses that write to the caches directly should go through the
+	 * register methods so that the count stays accurate.
+	 * 
+	 * @return the number of modifications made to this value generator
+	 */
+	public int getModificationCount() {
+		return modificationCount;
 	}
 
 	// ----------------------KEYS---------------------------
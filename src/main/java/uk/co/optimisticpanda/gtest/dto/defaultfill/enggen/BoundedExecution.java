@@ -0,0 +1,152 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IEngineVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
+
+/**
+ * Generates each dto as its own task on an {@link Executor}, with at most a
+ * fixed number of dtos in flight at once. This suits suppliers and visitors
+ * that block on I/O: with an executor that starts a thread per task, such as
+ * one running virtual threads, blocked rows do not hold up a small pool of
+ * platform threads.
+ *
+ * @author Andy Lee
+ */
+final class BoundedExecution {
+
+	private final Executor executor;
+	private final int maxInFlight;
+
+	BoundedExecution(Executor executor, int maxInFlight) {
+		if (executor == null) {
+			throw new IllegalArgumentException("An executor is required");
+		}
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("At least one dto must be allowed in flight: " + maxInFlight);
+		}
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * @return a new executor that starts a virtual thread for each task when
+	 *         the running JVM has them, otherwise one that starts (or reuses)
+	 *         a daemon platform thread for each task. The caller shuts it
+	 *         down.
+	 */
+	static ExecutorService threadPerTask() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "dto-generation");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Generate and visit the dtos for a range of indexes, returning once every
+	 * dto has been visited. When ordered, dtos are visited on the calling
+	 * thread in index order; otherwise each is visited by the task that
+	 * generated it.
+	 */
+	<D> void generate(InstanceGenerator<D> generator, IEngineVisitor<D> visitor, long fromIndex, long toIndex,
+			GenerationOrder order) {
+		switch (order) {
+		case ORDERED:
+			generateOrdered(generator, visitor, fromIndex, toIndex);
+			break;
+		case UNORDERED:
+			generateUnordered(generator, visitor, fromIndex, toIndex);
+			break;
+		default:
+			throw new IllegalArgumentException("Case not known for:" + order.name());
+		}
+	}
+
+	private <D> void generateOrdered(InstanceGenerator<D> generator, IEngineVisitor<D> visitor, long fromIndex, long toIndex) {
+		Deque<CompletableFuture<D>> inFlight = new ArrayDeque<CompletableFuture<D>>(maxInFlight);
+		try {
+			for (long i = fromIndex; i < toIndex; i++) {
+				if (inFlight.size() == maxInFlight) {
+					visitor.visit(i - maxInFlight, inFlight.removeFirst().join());
+				}
+				long index = i;
+				inFlight.addLast(CompletableFuture.supplyAsync(() -> generator.generate(index), executor));
+			}
+			for (long i = toIndex - inFlight.size(); i < toIndex; i++) {
+				visitor.visit(i, inFlight.removeFirst().join());
+			}
+		} catch (CompletionException e) {
+			throw unwrap(e.getCause());
+		} finally {
+			// Left over only if generating or visiting failed
+			inFlight.forEach(future -> future.cancel(false));
+		}
+	}
+
+	private <D> void generateUnordered(InstanceGenerator<D> generator, IEngineVisitor<D> visitor, long fromIndex, long toIndex) {
+		Semaphore permits = new Semaphore(maxInFlight);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		for (long i = fromIndex; i < toIndex && failure.get() == null; i++) {
+			permits.acquireUninterruptibly();
+			long index = i;
+			try {
+				executor.execute(() -> {
+					try {
+						visitor.visit(index, generator.generate(index));
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						permits.release();
+					}
+				});
+			} catch (RuntimeException e) {
+				permits.release();
+				failure.compareAndSet(null, e);
+			}
+		}
+		// Wait for the tasks still running
+		permits.acquireUninterruptibly(maxInFlight);
+		if (failure.get() != null) {
+			throw unwrap(failure.get());
+		}
+	}
+
+	private static RuntimeException unwrap(Throwable e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new IllegalStateException("Generation failed", e);
+	}
+}
@@ -1,24 +1,62 @@
 package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import uk.co.optimisticpanda.gtest.dto.IDataEditor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.CombinedVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.DataEditorVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.DoNothingVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IBatchVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IEngineVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.ListVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
+import uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.IndexedItem;
+import uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.LongIndexedItem;
 
 /**
+ * Generates dtos using an {@link InstanceGenerator}.
+ * <p>
+ * By default dtos are generated one after another on the calling thread. An
+ * engine returned from {@link #inParallel(int, GenerationOrder)} generates
+ * them on a {@link ForkJoinPool} instead. In that case the suppliers
+ * registered with the {@link uk.co.optimisticpanda.gtest.dto.defaultfill.ValueGenerator}
+ * are called from many threads at once and must be thread safe, and so must
+ * the visitor when using {@link GenerationOrder#UNORDERED}.
+ * </p>
+ * <p>
+ * An engine returned from {@link #onVirtualThreads(int, GenerationOrder)} or
+ * {@link #onExecutor(Executor, int, GenerationOrder)} generates each dto as a
+ * task of its own, with a limit on how many are in flight. This is for
+ * suppliers and visitors that block, for example on lookups or writes, and
+ * has the same thread safety requirements.
+ * </p>
+ * <p>
+ * Pools and executors passed in belong to the caller, who shuts them down.
+ * A pool or executor that an engine creates for itself belongs to that
+ * engine and is shut down by {@link #close()}.
+ * </p>
+ * 
  * @param <D>
  *            the type of dto to generate
  * @author Andy Lee
  */
-public class DtoGenerationEngine<D> {
+public class DtoGenerationEngine<D> implements AutoCloseable {
 
 	private final InstanceGenerator<D> generator;
+	private final ForkJoinPool pool;
+	private final GenerationOrder order;
+	private final BoundedExecution execution;
+	private final ExecutorService ownedPool;
 
 	/**
 	 * Create a new Dto Generation Engine.
@@ -27,7 +65,106 @@ public class DtoGenerationEngine<D> {
 	 * @param generator
 	 */
 	public DtoGenerationEngine(InstanceGenerator<D> generator) {
+		this(generator, null, GenerationOrder.ORDERED, null, null);
+	}
+
+	private DtoGenerationEngine(InstanceGenerator<D> generator, ForkJoinPool pool, GenerationOrder order,
+			BoundedExecution execution, ExecutorService ownedPool) {
 		this.generator = generator;
+		this.pool = pool;
+		this.order = order;
+		this.execution = execution;
+		this.ownedPool = ownedPool;
+	}
+
+	/**
+	 * Return an engine that generates dtos in parallel on a new
+	 * {@link ForkJoinPool} with the given parallelism. The pool belongs to
+	 * the returned engine, which should be {@link #close() closed} when it is
+	 * no longer needed.
+	 * 
+	 * @param parallelism
+	 *            the number of threads to generate on
+	 * @param order
+	 *            how generated dtos are handed to visitors
+	 * @return a parallel engine using the same instance generator
+	 */
+	public DtoGenerationEngine<D> inParallel(int parallelism, GenerationOrder order) {
+		if (order == null) {
+			throw new IllegalArgumentException("A pool and an order are required to generate in parallel");
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		return new DtoGenerationEngine<D>(generator, pool, order, null, pool);
+	}
+
+	/**
+	 * Return an engine that generates dtos in parallel on the passed in
+	 * {@link ForkJoinPool}.
+	 * 
+	 * @param pool
+	 *            the pool to generate on
+	 * @param order
+	 *            how generated dtos are handed to visitors
+	 * @return a parallel engine using the same instance generator
+	 */
+	public DtoGenerationEngine<D> inParallel(ForkJoinPool pool, GenerationOrder order) {
+		if (pool == null || order == null) {
+			throw new IllegalArgumentException("A pool and an order are required to generate in parallel");
+		}
+		return new DtoGenerationEngine<D>(generator, pool, order, null, null);
+	}
+
+	/**
+	 * Return an engine that generates and visits each dto on a virtual thread
+	 * of its own, or on a platform thread of its own when the running JVM
+	 * does not have virtual threads. The executor starting those threads
+	 * belongs to the returned engine, which should be {@link #close() closed}
+	 * when it is no longer needed.
+	 * 
+	 * @param maxInFlight
+	 *            the most dtos to generate at once
+	 * @param order
+	 *            how generated dtos are handed to visitors. When ordered,
+	 *            visitors are called from the calling thread.
+	 * @return an engine using the same instance generator
+	 */
+	public DtoGenerationEngine<D> onVirtualThreads(int maxInFlight, GenerationOrder order) {
+		if (order == null) {
+			throw new IllegalArgumentException("An order is required");
+		}
+		ExecutorService executor = BoundedExecution.threadPerTask();
+		return new DtoGenerationEngine<D>(generator, null, order, new BoundedExecution(executor, maxInFlight), executor);
+	}
+
+	/**
+	 * Return an engine that generates and visits each dto as a task of its
+	 * own on the passed in {@link Executor}.
+	 * 
+	 * @param executor
+	 *            the executor to generate on
+	 * @param maxInFlight
+	 *            the most dtos to generate at once
+	 * @param order
+	 *            how generated dtos are handed to visitors. When ordered,
+	 *            visitors are called from the calling thread.
+	 * @return an engine using the same instance generator
+	 */
+	public DtoGenerationEngine<D> onExecutor(Executor executor, int maxInFlight, GenerationOrder order) {
+		if (order == null) {
+			throw new IllegalArgumentException("An order is required");
+		}
+		return new DtoGenerationEngine<D>(generator, null, order, new BoundedExecution(executor, maxInFlight), null);
+	}
+
+	/**
+	 * Shut down the pool or executor this engine created for itself, if any. Pools and
+	 * executors that were passed in are left running for their owner.
+	 */
+	@Override
+	public void close() {
+		if (ownedPool != null) {
+			ownedPool.shutdown();
+		}
 	}
 
 	/**
@@ -37,10 +174,192 @@ public class DtoGenerationEngine<D> {
 	 * @param numberToCreate
 	 */
 	public void generate(IEngineVisitor<D> visitor, int numberToCreate) {
-		IntStream.range(0, numberToCreate).forEach(i -> {
-			D dto = generator.generate();
-			visitor.visit(i, dto);
-		});
+		generateRange(visitor, 0, numberToCreate);
+	}
+
+	/**
+	 * Generates a number of dtos that may be larger than
+	 * {@link Integer#MAX_VALUE} and applies a visitor to them. Visitors are
+	 * passed each index as a long, so should implement
+	 * {@link IEngineVisitor#visit(long, Object)} to see dtos beyond the range
+	 * of an int. Passing {@link Long#MAX_VALUE} generates until the visitor
+	 * throws or the thread is stopped.
+	 * 
+	 * @param visitor
+	 * @param numberToCreate
+	 */
+	public void generate(IEngineVisitor<D> visitor, long numberToCreate) {
+		generateRange(visitor, 0, numberToCreate);
+	}
+
+	/**
+	 * Generate the dto for a single index, exactly as it would be generated as
+	 * part of a larger run. See {@link InstanceGenerator#generate(long)}.
+	 * 
+	 * @param index
+	 * @return the generated dto
+	 */
+	public D generateAt(long index) {
+		return generator.generate(index);
+	}
+
+	/**
+	 * Generate the dto for a single index and apply a visitor to it. Visitors
+	 * and editors that only depend on the index they are passed, rather than
+	 * on state built up from earlier dtos, treat it exactly as they would as
+	 * part of a larger run.
+	 * 
+	 * @param index
+	 * @param visitor
+	 * @return the generated dto
+	 */
+	public D generateAt(long index, IEngineVisitor<D> visitor) {
+		D dto = generator.generate(index);
+		visitor.visit(index, dto);
+		return dto;
+	}
+
+	/**
+	 * Returns the dtos for a range of indexes without generating the dtos
+	 * before it, for example to read one page of a large data set or to split
+	 * a data set between workers.
+	 * 
+	 * @param fromIndex
+	 *            the index of the first dto to generate
+	 * @param numberToCreate
+	 * @return the list of generated dtos
+	 */
+	public List<D> collectRange(long fromIndex, int numberToCreate) {
+		return collectRangeAndVisit(new DoNothingVisitor<D>(), fromIndex, numberToCreate);
+	}
+
+	/**
+	 * Returns the dtos for a range of indexes after applying the passed in
+	 * visitor to them.
+	 * 
+	 * @param visitor
+	 * @param fromIndex
+	 *            the index of the first dto to generate
+	 * @param numberToCreate
+	 * @return the list of generated dtos
+	 */
+	public List<D> collectRangeAndVisit(IEngineVisitor<D> visitor, long fromIndex, int numberToCreate) {
+		ListVisitor<D> listVisitor = newListVisitor();
+		CombinedVisitor<D> combinedVisitor = new CombinedVisitor<D>(visitor, listVisitor);
+		generateRange(combinedVisitor, fromIndex, numberToCreate);
+		return listVisitor.getDtos();
+	}
+
+	private void generateRange(IEngineVisitor<D> visitor, long fromIndex, long numberToCreate) {
+		long toIndex = Math.addExact(fromIndex, numberToCreate);
+		if (execution != null) {
+			execution.generate(generator, visitor, fromIndex, toIndex, order);
+			return;
+		}
+		if (pool == null) {
+			for (long i = fromIndex; i < toIndex; i++) {
+				visitor.visit(i, generator.generate(i));
+			}
+		} else {
+			pool.submit(() -> generateInParallel(visitor, fromIndex, LongStream.range(fromIndex, toIndex).parallel())).join();
+		}
+	}
+
+	private void generateInParallel(IEngineVisitor<D> visitor, long fromIndex, LongStream indexes) {
+		switch (order) {
+		case ORDERED:
+			// Ordered dtos arrive one at a time, one index after another
+			AtomicLong next = new AtomicLong(fromIndex);
+			indexes.mapToObj(generator::generate).forEachOrdered(dto -> visitor.visit(next.getAndIncrement(), dto));
+			break;
+		case UNORDERED:
+			indexes.forEach(i -> visitor.visit(i, generator.generate(i)));
+			break;
+		default:
+			throw new IllegalArgumentException("Case not known for:" + order.name());
+		}
+	}
+
+	/**
+	 * Generates a number of dtos into a fixed size chunk that is reused, and
+	 * hands each full chunk (and the last, partial one) to the visitor. The
+	 * visitor is always called from one thread at a time in index order; on a
+	 * parallel engine the dtos within each chunk are generated in parallel.
+	 * Visitors that visit one dto at a time can be used through
+	 * {@link IBatchVisitor#of(IEngineVisitor)}.
+	 * 
+	 * @param visitor
+	 * @param numberToCreate
+	 * @param batchSize
+	 *            the number of dtos in each batch
+	 */
+	public void generateInBatches(IBatchVisitor<D> visitor, int numberToCreate, int batchSize) {
+		generateInBatches(visitor, (long) numberToCreate, batchSize);
+	}
+
+	/**
+	 * Generates a number of dtos in batches, as
+	 * {@link #generateInBatches(IBatchVisitor, int, int)} does, where the
+	 * number may be more than {@link Integer#MAX_VALUE}. Each batch is handed
+	 * to {@link IBatchVisitor#visitBatch(long, List)}.
+	 * 
+	 * @param visitor
+	 * @param numberToCreate
+	 * @param batchSize
+	 *            the number of dtos in each batch
+	 */
+	public void generateInBatches(IBatchVisitor<D> visitor, long numberToCreate, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+		}
+		Chunk<D> chunk = new Chunk<D>((int) Math.min(batchSize, Math.max(numberToCreate, 1)));
+		try {
+			long from = 0;
+			while (from < numberToCreate) {
+				int size = (int) Math.min(batchSize, numberToCreate - from);
+				fill(chunk, from, size);
+				visitor.visitBatch(from, chunk);
+				from += size;
+			}
+		} finally {
+			chunk.release();
+		}
+	}
+
+	private void fill(Chunk<D> chunk, long fromIndex, int size) {
+		chunk.size = size;
+		if (execution != null) {
+			execution.generate(generator, new IEngineVisitor<D>() {
+				@Override
+				public void visit(int index, D dto) {
+					visit((long) index, dto);
+				}
+
+				@Override
+				public void visit(long index, D dto) {
+					chunk.dtos[(int) (index - fromIndex)] = dto;
+				}
+			}, fromIndex, fromIndex + size, GenerationOrder.UNORDERED);
+		} else if (pool == null) {
+			for (int i = 0; i < size; i++) {
+				chunk.dtos[i] = generator.generate(fromIndex + i);
+			}
+		} else {
+			pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> chunk.dtos[i] = generator.generate(fromIndex + i)))
+					.join();
+		}
+	}
+
+	/**
+	 * Returns a pipeline that generates, edits and visits dtos on separate
+	 * threads connected by bounded buffers, so that a slow visitor overlaps
+	 * with generation. The pipeline uses its own threads rather than this
+	 * engine's pool.
+	 * 
+	 * @return a new pipeline for this engine's generator
+	 */
+	public GenerationPipeline<D> pipeline() {
+		return new GenerationPipeline<D>(generator);
 	}
 
 	/**
@@ -59,12 +378,17 @@ public class DtoGenerationEngine<D> {
 	 * @return a list of generated dtos
 	 */
 	public List<D> collectAndVisit(IEngineVisitor<D> visitor, int numberToCreate) {
-		ListVisitor<D> listVisitor = new ListVisitor<D>();
+		ListVisitor<D> listVisitor = newListVisitor();
 		CombinedVisitor<D> combinedVisitor = new CombinedVisitor<D>(visitor, listVisitor);
 		generate(combinedVisitor, numberToCreate);
 		return listVisitor.getDtos();
 	}
 
+	private ListVisitor<D> newListVisitor() {
+		// Only unordered parallel engines visit from many threads at once
+		return order == GenerationOrder.UNORDERED ? ListVisitor.<D> synchronizedVisitor() : new ListVisitor<D>();
+	}
+
 	/**
 	 * Returns all generated dtos after editing them with the passed in
 	 * {@link IDataEditor}.
@@ -76,4 +400,187 @@ public class DtoGenerationEngine<D> {
 	public List<D> collectAndEdit(IDataEditor<D> editor, int numberToCreate) {
 		return collectAndVisit(new DataEditorVisitor<D>(editor), numberToCreate);
 	}
+
+	/**
+	 * Returns a lazy, sequential stream of generated dtos along with their
+	 * indexes. Streams are always sequential, even on a parallel engine.
+	 * Nothing is generated until an element is pulled and nothing is retained
+	 * once it has been passed on, so very large numbers of dtos can be fed
+	 * into a sink in constant memory.
+	 * 
+	 * @param numberToCreate
+	 * @return a stream of generated dtos
+	 */
+	public Stream<IndexedItem<D>> stream(long numberToCreate) {
+		return streamAndVisit(new DoNothingVisitor<D>(), numberToCreate);
+	}
+
+	/**
+	 * Returns an unbounded lazy stream of generated dtos along with their
+	 * indexes. It should be limited by the caller, for example with
+	 * {@link Stream#limit(long)}, and fails if pulled past
+	 * {@link Integer#MAX_VALUE}. Use {@link #streamLong()} to go further.
+	 * 
+	 * @return an unbounded stream of generated dtos
+	 */
+	public Stream<IndexedItem<D>> stream() {
+		return index(LongStream.iterate(0, i -> i + 1), new DoNothingVisitor<D>());
+	}
+
+	/**
+	 * Returns a lazy stream of generated dtos, each of which has the passed in
+	 * visitor applied to it as it is pulled.
+	 * 
+	 * @param visitor
+	 * @param numberToCreate
+	 * @return a stream of generated dtos
+	 */
+	public Stream<IndexedItem<D>> streamAndVisit(IEngineVisitor<D> visitor, long numberToCreate) {
+		return index(LongStream.range(0, numberToCreate), visitor);
+	}
+
+	/**
+	 * Returns a lazy stream of generated dtos, each of which is edited by the
+	 * passed in {@link IDataEditor} as it is pulled.
+	 * 
+	 * @param editor
+	 * @param numberToCreate
+	 * @return a stream of generated dtos
+	 */
+	public Stream<IndexedItem<D>> streamAndEdit(IDataEditor<D> editor, long numberToCreate) {
+		return streamAndVisit(new DataEditorVisitor<D>(editor), numberToCreate);
+	}
+
+	/**
+	 * Returns a lazy, sequential stream of generated dtos along with their
+	 * indexes as longs, so it can go past {@link Integer#MAX_VALUE}. Like
+	 * {@link #stream(long)}, nothing is retained once it has been passed on.
+	 * 
+	 * @param numberToCreate
+	 * @return a stream of generated dtos
+	 */
+	public Stream<LongIndexedItem<D>> streamLong(long numberToCreate) {
+		return streamLongAndVisit(new DoNothingVisitor<D>(), numberToCreate);
+	}
+
+	/**
+	 * Returns an unbounded lazy stream of generated dtos along with their
+	 * indexes as longs. It should be limited by the caller, for example with
+	 * {@link Stream#limit(long)}.
+	 * 
+	 * @return an unbounded stream of generated dtos
+	 */
+	public Stream<LongIndexedItem<D>> streamLong() {
+		return streamLong(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns a lazy stream of generated dtos indexed by longs, each of which
+	 * has the passed in visitor applied to it as it is pulled.
+	 * 
+	 * @param visitor
+	 * @param numberToCreate
+	 * @return a stream of generated dtos
+	 */
+	public Stream<LongIndexedItem<D>> streamLongAndVisit(IEngineVisitor<D> visitor, long numberToCreate) {
+		return indexLong(LongStream.range(0, numberToCreate), visitor);
+	}
+
+	/**
+	 * Returns a lazy stream of the dtos for a range of indexes, without
+	 * generating the dtos before it.
+	 * 
+	 * @see #collectRange(long, int)
+	 * @param fromIndex
+	 *            the index of the first dto to generate
+	 * @param numberToCreate
+	 * @return a stream of generated dtos
+	 */
+	public Stream<LongIndexedItem<D>> streamRange(long fromIndex, long numberToCreate) {
+		return indexLong(LongStream.range(fromIndex, Math.addExact(fromIndex, numberToCreate)), new DoNothingVisitor<D>());
+	}
+
+	/**
+	 * Returns a reactive streams publisher of generated dtos. Each subscriber
+	 * gets its own dtos, generated only as it requests them.
+	 * 
+	 * @param numberToCreate
+	 * @return a publisher of generated dtos
+	 */
+	public DtoPublisher<D> publish(long numberToCreate) {
+		return publishAndVisit(new DoNothingVisitor<D>(), numberToCreate);
+	}
+
+	/**
+	 * Returns a reactive streams publisher of generated dtos, each of which
+	 * has the passed in visitor applied to it before it is published.
+	 * 
+	 * @param visitor
+	 * @param numberToCreate
+	 * @return a publisher of generated dtos
+	 */
+	public DtoPublisher<D> publishAndVisit(IEngineVisitor<D> visitor, long numberToCreate) {
+		return new DtoPublisher<D>(generator, visitor, numberToCreate, Runnable::run);
+	}
+
+	/**
+	 * Returns a reactive streams publisher of generated dtos, each of which is
+	 * edited by the passed in {@link IDataEditor} before it is published.
+	 * 
+	 * @param editor
+	 * @param numberToCreate
+	 * @return a publisher of generated dtos
+	 */
+	public DtoPublisher<D> publishAndEdit(IDataEditor<D> editor, long numberToCreate) {
+		return publishAndVisit(new DataEditorVisitor<D>(editor), numberToCreate);
+	}
+
+	/**
+	 * A reusable, fixed capacity list of generated dtos.
+	 */
+	private static final class Chunk<D> extends AbstractList<D> implements RandomAccess {
+
+		private final Object[] dtos;
+		private int size;
+
+		private Chunk(int capacity) {
+			this.dtos = new Object[capacity];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public D get(int index) {
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return (D) dtos[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		private void release() {
+			Arrays.fill(dtos, null);
+			size = 0;
+		}
+	}
+
+	private Stream<IndexedItem<D>> index(LongStream indexes, IEngineVisitor<D> visitor) {
+		return indexes.mapToObj(i -> {
+			int index = Math.toIntExact(i);
+			D dto = generator.generate(index);
+			visitor.visit(index, dto);
+			return new IndexedItem<D>(index, dto);
+		});
+	}
+
+	private Stream<LongIndexedItem<D>> indexLong(LongStream indexes, IEngineVisitor<D> visitor) {
+		return indexes.mapToObj(index -> {
+			D dto = generator.generate(index);
+			visitor.visit(index, dto);
+			return new LongIndexedItem<D>(index, dto);
+		});
+	}
 }
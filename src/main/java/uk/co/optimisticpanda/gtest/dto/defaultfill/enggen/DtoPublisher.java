@@ -0,0 +1,173 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IEngineVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
+
+/**
+ * A reactive streams {@link Publisher} of generated dtos. Nothing is generated
+ * until a subscriber requests it, and then only as many dtos as have been
+ * requested, so subscribers control the rate of generation and nothing is
+ * buffered between the generator and them.
+ * <p>
+ * Each subscriber gets its own dtos, starting from index 0, and each dto has
+ * the visitor applied to it before it is passed on. By default dtos are
+ * generated on the thread that calls {@link Subscription#request(long)};
+ * {@link #on(Executor)} moves generation onto an executor instead. Either
+ * way a subscriber is only signalled from one thread at a time.
+ * </p>
+ *
+ * @param <D>
+ *            the type of dto to generate
+ * @author Andy Lee
+ */
+public class DtoPublisher<D> implements Publisher<D> {
+
+	private final InstanceGenerator<D> generator;
+	private final IEngineVisitor<D> visitor;
+	private final long numberToCreate;
+	private final Executor executor;
+
+	DtoPublisher(InstanceGenerator<D> generator, IEngineVisitor<D> visitor, long numberToCreate, Executor executor) {
+		this.generator = generator;
+		this.visitor = visitor;
+		this.numberToCreate = numberToCreate;
+		this.executor = executor;
+	}
+
+	/**
+	 * @param executor
+	 *            the executor to generate dtos on
+	 * @return a publisher of the same dtos that generates them on the executor
+	 */
+	public DtoPublisher<D> on(Executor executor) {
+		if (executor == null) {
+			throw new IllegalArgumentException("An executor is required");
+		}
+		return new DtoPublisher<D>(generator, visitor, numberToCreate, executor);
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super D> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("A subscriber is required");
+		}
+		GeneratingSubscription subscription = new GeneratingSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+		// Completes straight away if there is nothing to generate
+		subscription.schedule();
+	}
+
+	/**
+	 * Generates dtos for one subscriber. Demand is added up in
+	 * {@link #requested} and whichever thread takes {@link #work} from zero
+	 * drains it, so signals are never concurrent and a request made from
+	 * within onNext does not recurse.
+	 */
+	private final class GeneratingSubscription implements Subscription {
+
+		private final Subscriber<? super D> subscriber;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger work = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile Throwable badRequest;
+		private long index;
+
+		private GeneratingSubscription(Subscriber<? super D> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				badRequest = new IllegalArgumentException("The number of dtos requested must be positive: " + n);
+			} else {
+				requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		private void schedule() {
+			if (work.getAndIncrement() == 0) {
+				executor.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			int missed = 1;
+			do {
+				long demand = requested.get();
+				long emitted = 0;
+				while (!finished() && emitted != demand) {
+					D dto;
+					try {
+						dto = generator.generate(index);
+						visitor.visit(index, dto);
+					} catch (RuntimeException e) {
+						cancelled = true;
+						subscriber.onError(e);
+						return;
+					}
+					index++;
+					subscriber.onNext(dto);
+					emitted++;
+				}
+				if (finished()) {
+					return;
+				}
+				if (emitted != 0 && demand != Long.MAX_VALUE) {
+					requested.addAndGet(-emitted);
+				}
+				missed = work.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		/**
+		 * @return true once no more signals should be sent, signalling
+		 *         completion or a bad request on the way if need be
+		 */
+		private boolean finished() {
+			if (cancelled) {
+				return true;
+			}
+			if (badRequest != null) {
+				cancelled = true;
+				subscriber.onError(badRequest);
+				return true;
+			}
+			if (index >= numberToCreate) {
+				cancelled = true;
+				subscriber.onComplete();
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IEngineVisitor;
+
+/**
+ * How a parallel {@link DtoGenerationEngine} hands generated dtos to its
+ * {@link IEngineVisitor}.
+ * 
+ * @author Andy Lee
+ */
+public enum GenerationOrder {
+
+	/**
+	 * Dtos are generated in parallel but visited one at a time in index order,
+	 * so collected lists have each dto at the position of its index. The
+	 * visitor does not need to be thread safe.
+	 */
+	ORDERED,
+
+	/**
+	 * Dtos are generated and visited in parallel as soon as they are ready.
+	 * This gives the highest throughput but the visitor must be thread safe
+	 * and collected lists are in no particular order.
+	 */
+	UNORDERED;
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import uk.co.optimisticpanda.gtest.dto.IDataEditor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IEngineVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
+import uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.LongIndexedItem;
+
+/**
+ * Generates, edits and visits dtos in separate stages that run at the same
+ * time, so that a slow visitor (such as one writing to a database or file)
+ * overlaps with generation rather than holding it up.
+ * <p>
+ * Generator threads claim indexes in turn and hand each dto to the editor
+ * threads, if an editor has been given, through a bounded {@link RingBuffer}.
+ * The editor threads hand them on to the visitor through another. The visitor
+ * runs on the thread that called {@link #run(IEngineVisitor, int)} and is only
+ * ever called from that thread. When a buffer is full the stage feeding it
+ * waits, so memory use is bounded by the buffer size whatever the relative
+ * speeds of the stages.
+ * </p>
+ * <p>
+ * With {@link GenerationOrder#ORDERED} (the default) the visitor sees dtos in
+ * index order. Generators then never run more than the buffer size ahead of
+ * the visitor, and dtos that arrive early wait in a window of that size. With
+ * {@link GenerationOrder#UNORDERED} they are visited as they arrive.
+ * </p>
+ * <p>
+ * The suppliers used by the generator, and the editor, are called from many
+ * threads at once and must be thread safe. If any stage fails the others
+ * stop and the failure is thrown from {@link #run(IEngineVisitor, int)}.
+ * </p>
+ *
+ * @param <D>
+ *            the type of dto to generate
+ * @author Andy Lee
+ */
+public class GenerationPipeline<D> {
+
+	private final InstanceGenerator<D> generator;
+	private int generatorThreads = 1;
+	private IDataEditor<D> editor;
+	private int editorThreads;
+	private int bufferSize = 1024;
+	private GenerationOrder order = GenerationOrder.ORDERED;
+
+	GenerationPipeline(InstanceGenerator<D> generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * @param threads
+	 *            the number of threads generating dtos. Defaults to 1.
+	 * @return this for chaining.
+	 */
+	public GenerationPipeline<D> generatorThreads(int threads) {
+		this.generatorThreads = atLeastOne(threads, "generator threads");
+		return this;
+	}
+
+	/**
+	 * Edit each dto on its own stage between generation and the visitor.
+	 *
+	 * @param editor
+	 *            the editor to apply to each dto
+	 * @param threads
+	 *            the number of threads editing dtos
+	 * @return this for chaining.
+	 */
+	public GenerationPipeline<D> editWith(IDataEditor<D> editor, int threads) {
+		if (editor == null) {
+			throw new IllegalArgumentException("An editor is required");
+		}
+		this.editor = editor;
+		this.editorThreads = atLeastOne(threads, "editor threads");
+		return this;
+	}
+
+	/**
+	 * @param size
+	 *            the number of dtos each buffer between stages can hold.
+	 *            Defaults to 1024.
+	 * @return this for chaining.
+	 */
+	public GenerationPipeline<D> bufferSize(int size) {
+		this.bufferSize = atLeastOne(size, "buffer size");
+		return this;
+	}
+
+	/**
+	 * @param order
+	 *            whether the visitor sees dtos in index order. Defaults to
+	 *            {@link GenerationOrder#ORDERED}.
+	 * @return this for chaining.
+	 */
+	public GenerationPipeline<D> order(GenerationOrder order) {
+		if (order == null) {
+			throw new IllegalArgumentException("An order is required");
+		}
+		this.order = order;
+		return this;
+	}
+
+	/**
+	 * Generate a number of dtos through the pipeline, visiting each on the
+	 * calling thread. Returns once every dto has been visited.
+	 *
+	 * @param visitor
+	 * @param numberToCreate
+	 */
+	public void run(IEngineVisitor<D> visitor, int numberToCreate) {
+		run(visitor, (long) numberToCreate);
+	}
+
+	/**
+	 * Generate a number of dtos through the pipeline, which may be more than
+	 * {@link Integer#MAX_VALUE}, visiting each on the calling thread with its
+	 * long index.
+	 *
+	 * @param visitor
+	 * @param numberToCreate
+	 */
+	public void run(IEngineVisitor<D> visitor, long numberToCreate) {
+		new Run(visitor, numberToCreate).execute();
+	}
+
+	private static int atLeastOne(int value, String name) {
+		if (value < 1) {
+			throw new IllegalArgumentException("The number of " + name + " must be at least 1: " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * The state of a single run of the pipeline.
+	 */
+	private final class Run {
+
+		private final IEngineVisitor<D> visitor;
+		private final long numberToCreate;
+		private final boolean ordered = order == GenerationOrder.ORDERED;
+		private final RingBuffer<LongIndexedItem<D>> generated;
+		private final RingBuffer<LongIndexedItem<D>> edited;
+		private final int window;
+		private final AtomicLong nextIndex = new AtomicLong();
+		private final AtomicLong takenForEditing = new AtomicLong();
+		private final AtomicLong visited = new AtomicLong();
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		private final List<Thread> threads = new ArrayList<Thread>();
+
+		private Run(IEngineVisitor<D> visitor, long numberToCreate) {
+			this.visitor = visitor;
+			this.numberToCreate = numberToCreate;
+			this.generated = new RingBuffer<LongIndexedItem<D>>(bufferSize);
+			this.edited = editor == null ? generated : new RingBuffer<LongIndexedItem<D>>(bufferSize);
+			this.window = generated.capacity();
+		}
+
+		private void execute() {
+			for (int i = 0; i < generatorThreads; i++) {
+				start("generator-" + i, this::generate);
+			}
+			for (int i = 0; i < editorThreads; i++) {
+				start("editor-" + i, this::edit);
+			}
+			try {
+				visit();
+			} catch (RuntimeException | Error e) {
+				failure.compareAndSet(null, e);
+			}
+			awaitStages();
+			rethrowFailure();
+		}
+
+		private void start(String name, Runnable stage) {
+			Thread thread = new Thread(() -> {
+				try {
+					stage.run();
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			}, "dto-pipeline-" + name);
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+
+		private void generate() {
+			long index;
+			while (!failed() && (index = nextIndex.getAndIncrement()) < numberToCreate) {
+				if (ordered) {
+					// Never run more than a window ahead of the visitor
+					for (int attempt = 0; index - visited.get() >= window; attempt++) {
+						if (failed()) {
+							return;
+						}
+						RingBuffer.backOff(attempt);
+					}
+				}
+				put(generated, new LongIndexedItem<D>(index, generator.generate(index)));
+			}
+		}
+
+		private void edit() {
+			for (int attempt = 0; !failed() && takenForEditing.get() < numberToCreate;) {
+				LongIndexedItem<D> item = generated.poll();
+				if (item == null) {
+					RingBuffer.backOff(attempt++);
+					continue;
+				}
+				attempt = 0;
+				takenForEditing.incrementAndGet();
+				put(edited, new LongIndexedItem<D>(item.index, editor.edit(item.index, item.item)));
+			}
+		}
+
+		private void visit() {
+			@SuppressWarnings("unchecked")
+			LongIndexedItem<D>[] early = ordered ? (LongIndexedItem<D>[]) new LongIndexedItem<?>[window] : null;
+			long received = 0;
+			for (int attempt = 0; !failed() && received < numberToCreate;) {
+				LongIndexedItem<D> item = edited.poll();
+				if (item == null) {
+					RingBuffer.backOff(attempt++);
+					continue;
+				}
+				attempt = 0;
+				received++;
+				if (!ordered) {
+					visitor.visit(item.index, item.item);
+					visited.lazySet(received);
+					continue;
+				}
+				early[slot(item.index)] = item;
+				long next = visited.get();
+				while (early[slot(next)] != null && early[slot(next)].index == next) {
+					LongIndexedItem<D> inOrder = early[slot(next)];
+					early[slot(next)] = null;
+					visitor.visit(inOrder.index, inOrder.item);
+					visited.set(++next);
+				}
+			}
+		}
+
+		private int slot(long index) {
+			return (int) (index % window);
+		}
+
+		private void put(RingBuffer<LongIndexedItem<D>> buffer, LongIndexedItem<D> item) {
+			for (int attempt = 0; !buffer.offer(item); attempt++) {
+				if (failed()) {
+					return;
+				}
+				RingBuffer.backOff(attempt);
+			}
+		}
+
+		private boolean failed() {
+			return failure.get() != null;
+		}
+
+		private void awaitStages() {
+			if (!failed() && visited.get() < numberToCreate) {
+				failure.compareAndSet(null, new IllegalStateException("The pipeline stopped before every dto was visited"));
+			}
+			for (Thread thread : threads) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					failure.compareAndSet(null, e);
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		private void rethrowFailure() {
+			Throwable e = failure.get();
+			if (e == null) {
+				return;
+			}
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			throw new IllegalStateException("Generation pipeline failed", e);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit;
+
+import java.util.List;
+
+/**
+ * Works out whether a batch can be handed to
+ * {@link IBatchVisitor#visitBatch(int, List)}.
+ *
+ * @author Andy Lee
+ */
+final class BatchIndexes {
+
+	private BatchIndexes() {
+		// static helper
+	}
+
+	/**
+	 * @return true if the index of every dto in a batch, not just the first,
+	 *         is in the range of an int
+	 */
+	static boolean fitInAnInt(long fromIndex, List<?> dtos) {
+		return fromIndex >= Integer.MIN_VALUE && fromIndex + Math.max(dtos.size() - 1, 0) <= Integer.MAX_VALUE;
+	}
+}
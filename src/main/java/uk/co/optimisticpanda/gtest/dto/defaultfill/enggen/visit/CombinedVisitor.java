@@ -21,22 +21,67 @@ import java.util.List;
 
 /**
  *This visitor allows multiple visitors to visit the same item at the same type
+ * <p>
+ * When visiting batches each batch is handed to each visitor in turn, with
+ * visitors that only visit single dtos adapted once, when this is created,
+ * by {@link IBatchVisitor#of(IEngineVisitor)}.
+ * </p>
  * 
  * @param <D>
  * @author Andy Lee
  */
-public class CombinedVisitor<D> implements IEngineVisitor<D> {
+public class CombinedVisitor<D> implements IEngineVisitor<D>, IBatchVisitor<D> {
 
 	List<IEngineVisitor<D>> visitors;
+	private final List<IBatchVisitor<D>> batchVisitors;
 
 	@SafeVarargs
 	public CombinedVisitor(IEngineVisitor<D>... visitor) {
 		this.visitors  = new ArrayList<IEngineVisitor<D>>(Arrays.<IEngineVisitor<D>>asList(visitor));
+		this.batchVisitors = new ArrayList<IBatchVisitor<D>>(visitors.size());
+		for (IEngineVisitor<D> each : visitors) {
+			batchVisitors.add(IBatchVisitor.of(each));
+		}
 	}
 
 	@Override
 	public void visit(int index, D dto) {
-		visitors.forEach(v -> v.visit(index, dto));
+		visitAll(index, dto);
+	}
+
+	@Override
+	public void visit(long index, D dto) {
+		if (index == (int) index) {
+			visit((int) index, dto);
+			return;
+		}
+		visitAll(index, dto);
+	}
+
+	@Override
+	public void visitBatch(int fromIndex, List<D> dtos) {
+		visitBatchAll(fromIndex, dtos);
+	}
+
+	@Override
+	public void visitBatch(long fromIndex, List<D> dtos) {
+		if (BatchIndexes.fitInAnInt(fromIndex, dtos)) {
+			visitBatch((int) fromIndex, dtos);
+			return;
+		}
+		visitBatchAll(fromIndex, dtos);
+	}
+
+	private void visitAll(long index, D dto) {
+		for (IEngineVisitor<D> visitor : visitors) {
+			visitor.visit(index, dto);
+		}
+	}
+
+	private void visitBatchAll(long fromIndex, List<D> dtos) {
+		for (IBatchVisitor<D> visitor : batchVisitors) {
+			visitor.visitBatch(fromIndex, dtos);
+		}
 	}
 
 }
@@ -15,6 +15,8 @@
  */
 package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit;
 
+import java.util.List;
+
 import uk.co.optimisticpanda.gtest.dto.IDataEditor;
 
 /**
@@ -23,7 +25,7 @@ import uk.co.optimisticpanda.gtest.dto.IDataEditor;
  * @param <D>
  * @author Andy Lee
  */
-public class DataEditorVisitor<D> implements IEngineVisitor<D> {
+public class DataEditorVisitor<D> implements IEngineVisitor<D>, IBatchVisitor<D> {
 
 	private final IDataEditor<D> editor;
 
@@ -33,7 +35,40 @@ public class DataEditorVisitor<D> implements IEngineVisitor<D> {
 
 	@Override
 	public void visit(int index, D dto) {
+		edit(index, dto);
+	}
+
+	@Override
+	public void visit(long index, D dto) {
+		if (index == (int) index) {
+			visit((int) index, dto);
+			return;
+		}
+		edit(index, dto);
+	}
+
+	@Override
+	public void visitBatch(int fromIndex, List<D> dtos) {
+		editAll(fromIndex, dtos);
+	}
+
+	@Override
+	public void visitBatch(long fromIndex, List<D> dtos) {
+		if (BatchIndexes.fitInAnInt(fromIndex, dtos)) {
+			visitBatch((int) fromIndex, dtos);
+			return;
+		}
+		editAll(fromIndex, dtos);
+	}
+
+	private void edit(long index, D dto) {
 		editor.edit(index, dto);
 	}
 
+	private void editAll(long fromIndex, List<D> dtos) {
+		for (int i = 0; i < dtos.size(); i++) {
+			editor.edit(fromIndex + i, dtos.get(i));
+		}
+	}
+
 }
@@ -15,6 +15,8 @@
  */
 package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit;
 
+import java.util.List;
+
 /**
  *A visitor that doesn't actually do anything when it visits.
  * 
@@ -22,11 +24,26 @@ package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit;
  *            the dto to visit
  * @author Andy Lee
  */
-public class DoNothingVisitor<D> implements IEngineVisitor<D> {
+public class DoNothingVisitor<D> implements IEngineVisitor<D>, IBatchVisitor<D> {
 
 	@Override
 	public void visit(int index, Object dto) {
 		// DO NOTHING
 	}
 
+	@Override
+	public void visit(long index, Object dto) {
+		// DO NOTHING
+	}
+
+	@Override
+	public void visitBatch(int fromIndex, List<D> dtos) {
+		// DO NOTHING
+	}
+
+	@Override
+	public void visitBatch(long fromIndex, List<D> dtos) {
+		// DO NOTHING
+	}
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit;
+
+import java.util.List;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.DtoGenerationEngine;
+
+/**
+ * A visitor that is handed generated dtos a batch at a time, for use with
+ * {@link DtoGenerationEngine#generateInBatches(IBatchVisitor, int, int)}. This
+ * suits sinks that write in bulk, such as database or file writers.
+ * <p>
+ * Batches are visited one at a time, in index order, from one thread at a
+ * time. The list passed in is reused for the next batch, so a visitor must
+ * copy any dtos it wants to keep rather than keeping the list.
+ * </p>
+ *
+ * @param <D>
+ *            the type of dto to visit
+ * @author Andy Lee
+ */
+public interface IBatchVisitor<D> {
+
+	/**
+	 * @param fromIndex
+	 *            the index of the first dto in the batch
+	 * @param dtos
+	 *            the dtos in the batch, in index order
+	 */
+	void visitBatch(int fromIndex, List<D> dtos);
+
+	/**
+	 * Visit a batch whose indexes may be beyond {@link Integer#MAX_VALUE}.
+	 * By default a batch whose indexes are all in the range of an int is
+	 * passed on to {@link #visitBatch(int, List)}.
+	 *
+	 * @param fromIndex
+	 *            the index of the first dto in the batch
+	 * @param dtos
+	 *            the dtos in the batch, in index order
+	 * @throws ArithmeticException
+	 *             if this visitor only supports int indexes and an index in
+	 *             the batch is out of that range
+	 */
+	default void visitBatch(long fromIndex, List<D> dtos) {
+		if (!BatchIndexes.fitInAnInt(fromIndex, dtos)) {
+			throw new ArithmeticException("A batch of " + dtos.size() + " dtos from index " + fromIndex
+					+ " does not fit in the range of an int");
+		}
+		visitBatch((int) fromIndex, dtos);
+	}
+
+	/**
+	 * Visit batches with a visitor that visits one dto at a time.
+	 *
+	 * @param visitor
+	 *            the visitor to adapt
+	 * @return the visitor itself if it already visits batches, otherwise a
+	 *         batch visitor that visits each dto in turn
+	 */
+	@SuppressWarnings("unchecked")
+	static <D> IBatchVisitor<D> of(IEngineVisitor<D> visitor) {
+		if (visitor instanceof IBatchVisitor) {
+			return (IBatchVisitor<D>) visitor;
+		}
+		return new IBatchVisitor<D>() {
+			@Override
+			public void visitBatch(int fromIndex, List<D> dtos) {
+				visitBatch((long) fromIndex, dtos);
+			}
+
+			@Override
+			public void visitBatch(long fromIndex, List<D> dtos) {
+				for (int i = 0; i < dtos.size(); i++) {
+					visitor.visit(fromIndex + i, dtos.get(i));
+				}
+			}
+		};
+	}
+}
@@ -19,6 +19,15 @@ import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.DtoGenerationEngine;
 
 /**
  * A visitor for use with the {@link DtoGenerationEngine}.
+ * <p>
+ * A sequential engine, or a parallel one using
+ * {@link uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.GenerationOrder#ORDERED},
+ * only calls a visitor from one thread at a time, in index order. A parallel
+ * engine using
+ * {@link uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.GenerationOrder#UNORDERED}
+ * calls it from many threads at once, so visitors used that way must be
+ * thread safe.
+ * </p>
  * 
  * @param <D>
  *            the type of dto to visit
@@ -35,4 +44,21 @@ public interface IEngineVisitor<D> {
 	 */
 	public abstract void visit(int index, D dto);
 
+	/**
+	 * Visit a dto at an index that may be beyond {@link Integer#MAX_VALUE},
+	 * for very large or unbounded generations. By default indexes in the
+	 * range of an int are passed on to {@link #visit(int, Object)}.
+	 * 
+	 * @param index
+	 *            the index of this object
+	 * @param dto
+	 *            the dto to visit
+	 * @throws ArithmeticException
+	 *             if this visitor only supports int indexes and the index is
+	 *             out of that range
+	 */
+	default void visit(long index, D dto) {
+		visit(Math.toIntExact(index), dto);
+	}
+
 }
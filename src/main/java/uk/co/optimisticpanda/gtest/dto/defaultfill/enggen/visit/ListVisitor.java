@@ -20,17 +20,30 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- *A Visitor that collects all visited dtos and allows access to them.
+ *A Visitor that collects all visited dtos and allows access to them. It is
+ * not thread safe; use {@link #synchronizedVisitor()} for a visitor that is
+ * called from many threads at once, such as by an unordered parallel engine.
  * 
  * @param <D>
  * @author Andy Lee
  */
-public class ListVisitor<D> implements IEngineVisitor<D> {
+public class ListVisitor<D> implements IEngineVisitor<D>, IBatchVisitor<D> {
 
-	private List<D> dtos;
+	private final List<D> dtos;
 
 	public ListVisitor() {
-		this.dtos = new ArrayList<>();
+		this(new ArrayList<>());
+	}
+
+	private ListVisitor(List<D> dtos) {
+		this.dtos = dtos;
+	}
+
+	/**
+	 * @return a visitor that can be called from many threads at once
+	 */
+	public static <D> ListVisitor<D> synchronizedVisitor() {
+		return new ListVisitor<D>(Collections.synchronizedList(new ArrayList<>()));
 	}
 
 	@Override
@@ -38,6 +51,21 @@ public class ListVisitor<D> implements IEngineVisitor<D> {
 		dtos.add(dto);
 	}
 
+	@Override
+	public void visit(long index, D dto) {
+		dtos.add(dto);
+	}
+
+	@Override
+	public void visitBatch(int fromIndex, List<D> batch) {
+		dtos.addAll(batch);
+	}
+
+	@Override
+	public void visitBatch(long fromIndex, List<D> batch) {
+		dtos.addAll(batch);
+	}
+
 	public List<D> getDtos() {
 		return Collections.unmodifiableList(dtos);
 	}
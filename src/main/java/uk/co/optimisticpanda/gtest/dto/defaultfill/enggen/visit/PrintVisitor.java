@@ -53,4 +53,9 @@ public class PrintVisitor<D> implements IEngineVisitor<D>{
 		stream.println(dto);
 	}
 
+	@Override
+	public void visit(long index, D dto) {
+		stream.println(dto);
+	}
+
 }
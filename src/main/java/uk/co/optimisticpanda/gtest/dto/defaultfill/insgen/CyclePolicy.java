@@ -0,0 +1,45 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.insgen;
+
+/**
+ * What an {@link InstanceGenerator} does when it reaches a field whose type is
+ * already being generated further up the same branch of the object graph, for
+ * example a parent field that refers back to the class that holds it.
+ * 
+ * @author Andy Lee
+ */
+public enum CyclePolicy {
+
+	/**
+	 * Leave the field untouched, so references are left null.
+	 */
+	NULL_OUT,
+
+	/**
+	 * Set the field to the nearest instance of that type further up the
+	 * branch, so that the generated graph contains the cycle.
+	 */
+	REUSE_ANCESTOR,
+
+	/**
+	 * Keep generating new instances until the type has been repeated the
+	 * maximum recursion depth number of times along the branch, then leave the
+	 * field untouched. Each self referencing field doubles the amount
+	 * generated per level, so depths should be kept small.
+	 */
+	RECURSE;
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.defaultfill.insgen;
+
+import static uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.NOT_COVERED;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import uk.co.optimisticpanda.gtest.dto.defaultfill.ValueGenerator;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.excl.ExclusionHolder;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+
+/**
+ * An immutable, precompiled description of how to create and populate an
+ * instance of one class at one position in the object graph.
+ * <p>
+ * All of the reflection, path building, exclusion checks, generator look ups
+ * and {@link IPropertyAccess} creation happen once when the plan is compiled.
+ * Executing the plan just creates the instance and then, for each field slot,
+ * runs the resolved {@link Supplier} (or child plan) and writes the result.
+ * Cycles in the class structure are resolved at compile time according to the
+ * {@link CyclePolicy}, so every plan is finite.
+ * </p>
+ *
+ * @param <E>
+ *            the type of instance this plan creates
+ * @author Andy Lee
+ */
+final class GenerationPlan<E> {
+
+	private final String path;
+	private final Class<E> type;
+	private final Constructor<E> constructor;
+	private final Exception constructorFailure;
+	private final FieldSlot[] slots;
+	private final int modificationCount;
+
+	private GenerationPlan(String path, Class<E> type, Constructor<E> constructor, Exception constructorFailure,
+			FieldSlot[] slots, int modificationCount) {
+		this.path = path;
+		this.type = type;
+		this.constructor = constructor;
+		this.constructorFailure = constructorFailure;
+		this.slots = slots;
+		this.modificationCount = modificationCount;
+	}
+
+	/**
+	 * Create a new instance and populate each of its field slots.
+	 *
+	 * @return the populated instance
+	 */
+	E execute() {
+		return execute(new Ancestry());
+	}
+
+	private E execute(Ancestry ancestry) {
+		E instance = createInstance();
+		ancestry.push(instance);
+		for (FieldSlot slot : slots) {
+			slot.populate(instance, ancestry);
+		}
+		ancestry.pop();
+		return instance;
+	}
+
+	/**
+	 * @param valueGenerator
+	 *            the value generator this plan was compiled against
+	 * @return whether generators have been registered or cleared since this
+	 *         plan was compiled.
+	 */
+	boolean isStale(ValueGenerator valueGenerator) {
+		return valueGenerator.getModificationCount() != modificationCount;
+	}
+
+	private E createInstance() {
+		if (constructor == null) {
+			throw new InstanceGeneratorException(path, type, constructorFailure);
+		}
+		try {
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new InstanceGeneratorException(path, type, e);
+		}
+	}
+
+	/**
+	 * Compile a plan for the root class of a generator.
+	 *
+	 * @param rootClass
+	 *            the class to generate
+	 * @param valueGenerator
+	 *            used to resolve the supplier for each field
+	 * @param exclusions
+	 *            paths that should be left untouched
+	 * @param propertyAccessFactory
+	 *            used to create the accessor that writes each field
+	 * @param cyclePolicy
+	 *            what to do with fields that would start a cycle
+	 * @param maxRecursionDepth
+	 *            how many times a type may repeat along a branch when
+	 *            recursing on cycles
+	 * @return the compiled plan
+	 */
+	static <E> GenerationPlan<E> compile(Class<E> rootClass, ValueGenerator valueGenerator, ExclusionHolder exclusions,
+			IPropertyAccessFactory propertyAccessFactory, CyclePolicy cyclePolicy, int maxRecursionDepth) {
+		Compiler compiler = new Compiler(valueGenerator, exclusions, propertyAccessFactory, cyclePolicy, maxRecursionDepth);
+		return compiler.compile("", rootClass, new ArrayList<Class<?>>());
+	}
+
+	/**
+	 * Walks the class structure once, resolving everything that does not
+	 * change between generated instances.
+	 */
+	private static class Compiler {
+
+		private final ValueGenerator valueGenerator;
+		private final ExclusionHolder exclusions;
+		private final IPropertyAccessFactory propertyAccessFactory;
+		private final CyclePolicy cyclePolicy;
+		private final int maxRecursionDepth;
+		private final int modificationCount;
+
+		private Compiler(ValueGenerator valueGenerator, ExclusionHolder exclusions, IPropertyAccessFactory propertyAccessFactory,
+				CyclePolicy cyclePolicy, int maxRecursionDepth) {
+			this.valueGenerator = valueGenerator;
+			this.exclusions = exclusions;
+			this.propertyAccessFactory = propertyAccessFactory;
+			this.cyclePolicy = cyclePolicy;
+			this.maxRecursionDepth = maxRecursionDepth;
+			this.modificationCount = valueGenerator.getModificationCount();
+		}
+
+		private <E> GenerationPlan<E> compile(String path, Class<E> classToProcess, List<Class<?>> ancestors) {
+			Constructor<E> constructor;
+			try {
+				constructor = classToProcess.getConstructor();
+			} catch (Exception e) {
+				// Fail when an instance is requested, as generation always has.
+				return new GenerationPlan<E>(path, classToProcess, null, e, new FieldSlot[0], modificationCount);
+			}
+
+			ancestors.add(classToProcess);
+			List<FieldSlot> slots = new ArrayList<FieldSlot>();
+			for (Field field : classToProcess.getDeclaredFields()) {
+				String fieldPath = addPathElement(path, field);
+				if (exclusions.isNotExcluded(fieldPath)) {
+					ValueSource source = resolveSource(field, fieldPath, ancestors);
+					if (source != null) {
+						IPropertyAccess access = propertyAccessFactory.createPropertyAccess(field.getName());
+						slots.add(new FieldSlot(access, source));
+					}
+				}
+			}
+			ancestors.remove(ancestors.size() - 1);
+
+			return new GenerationPlan<E>(path, classToProcess, constructor, null, slots.toArray(new FieldSlot[slots.size()]),
+					modificationCount);
+		}
+
+		/**
+		 * @return where the value of the field comes from, or null if the
+		 *         field should be left untouched.
+		 */
+		private ValueSource resolveSource(Field field, String fieldPath, List<Class<?>> ancestors) {
+			Supplier<?> generator = valueGenerator.lookUpGenerator(fieldPath, field);
+			if (generator != NOT_COVERED) {
+				return ancestry -> generator.get();
+			}
+			Class<?> fieldType = field.getType();
+			if (ancestors.contains(fieldType)) {
+				return resolveCycle(field, fieldPath, fieldType, ancestors);
+			}
+			GenerationPlan<?> child = compile(fieldPath, fieldType, ancestors);
+			return child::execute;
+		}
+
+		private ValueSource resolveCycle(Field field, String fieldPath, Class<?> fieldType, List<Class<?>> ancestors) {
+			switch (cyclePolicy) {
+			case NULL_OUT:
+				return null;
+			case REUSE_ANCESTOR:
+				int depth = ancestors.lastIndexOf(fieldType);
+				return ancestry -> ancestry.get(depth);
+			case RECURSE:
+				if (Collections.frequency(ancestors, fieldType) > maxRecursionDepth) {
+					return null;
+				}
+				GenerationPlan<?> child = compile(fieldPath, fieldType, ancestors);
+				return child::execute;
+			default:
+				throw new IllegalArgumentException("Case not known for:" + cyclePolicy.name());
+			}
+		}
+
+		private String addPathElement(String currentPath, Field field) {
+			return currentPath.length() == 0 ? field.getName() : currentPath + "." + field.getName();
+		}
+	}
+
+	/**
+	 * Where the value written to a field slot comes from.
+	 */
+	private interface ValueSource {
+		Object get(Ancestry ancestry);
+	}
+
+	/**
+	 * The instances currently being populated along the branch being
+	 * generated, from the root down.
+	 */
+	private static final class Ancestry {
+
+		private Object[] instances = new Object[8];
+		private int size;
+
+		private void push(Object instance) {
+			if (size == instances.length) {
+				instances = Arrays.copyOf(instances, size * 2);
+			}
+			instances[size++] = instance;
+		}
+
+		private void pop() {
+			instances[--size] = null;
+		}
+
+		private Object get(int depth) {
+			return instances[depth];
+		}
+	}
+
+	/**
+	 * A single field to be written: the accessor that writes it and the
+	 * source of its value.
+	 */
+	private static final class FieldSlot {
+
+		private final IPropertyAccess access;
+		private final ValueSource source;
+
+		private FieldSlot(IPropertyAccess access, ValueSource source) {
+			this.access = access;
+			this.source = source;
+		}
+
+		private void populate(Object instance, Ancestry ancestry) {
+			Object propertyValue = source.get(ancestry);
+			try {
+				access.setValue(instance, propertyValue);
+			} catch (IllegalArgumentException e) {
+				throw new InstanceGeneratorException(e);
+			}
+		}
+	}
+}
@@ -15,16 +15,13 @@
  */
 package uk.co.optimisticpanda.gtest.dto.defaultfill.insgen;
 
-import static uk.co.optimisticpanda.gtest.dto.util.FunctionUtils.NOT_COVERED;
-
-import java.lang.reflect.Field;
 import java.util.function.Supplier;
 
 import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.DefaultValueGenerator;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.GenerationIndex;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.ValueGenerator;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.excl.ExclusionHolder;
-import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
 
 /**
@@ -40,8 +37,12 @@ import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
  * the entire object tree and should return a mostly populated instance.
  * <li/>It is possible to register strategies against user defined classes to
  * deal with larger parts of the tree.
- * <li/><em>Currently cycles in the object tree aren't dealt with and so will
- * lead to infinite looping!</em>
+ * <li/>The class structure is resolved into a generation plan once, when the
+ * generator is built, so generating an instance only runs suppliers and writes
+ * fields.
+ * <li/>Cycles in the object tree, where a field refers to a type that is
+ * already being generated further up the branch, are handled according to a
+ * {@link CyclePolicy}. By default such fields are left null.
  * <ul/>
  * 
  * @see ValueGenerator
@@ -53,8 +54,11 @@ public class InstanceGenerator<D> {
 
 	private final Class<D> clazz;
 	private final ValueGenerator generatorCache;
-	private IPropertyAccessFactory propertyAccessFactory;
+	private final IPropertyAccessFactory propertyAccessFactory;
 	private final ExclusionHolder exclusions;
+	private final CyclePolicy cyclePolicy;
+	private final int maxRecursionDepth;
+	private volatile GenerationPlan<D> plan;
 
 	/**
 	 * Creates a new instance generator.
@@ -65,12 +69,18 @@ public class InstanceGenerator<D> {
 	 *            This consists of strategies that should be used for the
 	 *            generation of values of specific properties.
 	 * @param exclusions
+	 * @param cyclePolicy
+	 * @param maxRecursionDepth
 	 */
-	private InstanceGenerator(Class<D> clazz, ValueGenerator valueGeneratorCache, ExclusionHolder exclusions) {
+	private InstanceGenerator(Class<D> clazz, ValueGenerator valueGeneratorCache, ExclusionHolder exclusions,
+			CyclePolicy cyclePolicy, int maxRecursionDepth) {
 		this.clazz = clazz;
 		this.generatorCache = valueGeneratorCache;
 		this.exclusions = exclusions;
+		this.cyclePolicy = cyclePolicy;
+		this.maxRecursionDepth = maxRecursionDepth;
 		this.propertyAccessFactory = TestUtilsContext.getPropertyAccessFactory();
+		this.plan = compilePlan();
 	}
 
 	public static <D> InstanceGeneratorBuilder<D> of(Class<D> rootClassToGenerate){
@@ -89,49 +99,40 @@ public class InstanceGenerator<D> {
 	 * @return a new instance of an object of a specific class.
 	 */
 	public D generate() {
-		return processClass("", clazz);
-	}
-
-	private <E> E processClass(String path, Class<E> currentClassToProcess) {
-		E instance = createInstance(path, currentClassToProcess);
-		Field[] declaredFields = currentClassToProcess.getDeclaredFields();
-		for (Field field : declaredFields) {
-			String fieldPath = addPathElement(path, field);
-			if (exclusions.isNotExcluded(fieldPath)) {
-				Object propertyValue = processField(field, fieldPath);
-				setValue(field, instance, propertyValue);
-			}
-		}
-		return instance;
+		return currentPlan().execute();
 	}
 
-	private Object processField(Field field, String propertyPath) {
-		Supplier<?> generator = generatorCache.lookUpGenerator(propertyPath, field);
-		if (generator == NOT_COVERED) {
-			return processClass(propertyPath, field.getType());
-		}
-		return generator.get();
+	/**
+	 * Generate the instance for a specific index. The index is made available
+	 * to suppliers through {@link GenerationIndex}, so if every supplier
+	 * derives its value from the index alone the same instance is produced
+	 * for an index every time, without generating the instances before it.
+	 * 
+	 * @param index
+	 *            the index of the instance to generate
+	 * @return a new instance of an object of a specific class.
+	 */
+	public D generate(long index) {
+		return GenerationIndex.at(index, this::generate);
 	}
 
-	private <E> E createInstance(String path, Class<E> classToCreate) {
-		try {
-			return classToCreate.getConstructor().newInstance();
-		} catch (Exception e) {
-			throw new InstanceGeneratorException(path, classToCreate, e);
+	/**
+	 * The plan is compiled when this generator is built. If generators have
+	 * since been registered with, or cleared from, the {@link ValueGenerator}
+	 * it is compiled again so that those changes are picked up.
+	 */
+	private GenerationPlan<D> currentPlan() {
+		GenerationPlan<D> current = plan;
+		if (current.isStale(generatorCache)) {
+			current = compilePlan();
+			plan = current;
 		}
+		return current;
 	}
 
-	private String addPathElement(String currentPath, Field field) {
-		return currentPath.length() == 0 ? field.getName() : currentPath + "." + field.getName();
-	}
-
-	private void setValue(Field field, Object instance, Object propertyValue) {
-		try {
-			IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess(field.getName());
-			propertyAccess.setValue(instance, propertyValue);
-		} catch (IllegalArgumentException e) {
-			throw new InstanceGeneratorException(e);
-		}
+	private GenerationPlan<D> compilePlan() {
+		return GenerationPlan.compile(clazz, generatorCache, exclusions, propertyAccessFactory, cyclePolicy,
+				maxRecursionDepth);
 	}
 	
 	public static class InstanceGeneratorBuilder<D> {
@@ -139,6 +140,8 @@ public class InstanceGenerator<D> {
 		private ValueGenerator generatorCache;
 		private ExclusionHolder exclusions;
 		private Class<D> rootClassToGenerate;
+		private CyclePolicy cyclePolicy = CyclePolicy.NULL_OUT;
+		private int maxRecursionDepth = 1;
 
 		private InstanceGeneratorBuilder(Class<D> rootClassToGenerate, ValueGenerator valueGenCache) {
 			this.rootClassToGenerate = rootClassToGenerate;
@@ -158,6 +161,8 @@ public class InstanceGenerator<D> {
 			this.rootClassToGenerate = clazz;
 			this.generatorCache = builder.generatorCache;
 			this.exclusions = builder.exclusions;
+			this.cyclePolicy = builder.cyclePolicy;
+			this.maxRecursionDepth = builder.maxRecursionDepth;
 		}
 
 		/**
@@ -182,8 +187,42 @@ public class InstanceGenerator<D> {
 			return this;
 		}
 
+		/**
+		 * @param policy
+		 *            what to do with fields whose type is already being
+		 *            generated further up the same branch. Defaults to
+		 *            {@link CyclePolicy#NULL_OUT}.
+		 * @return this for chaining.
+		 */
+		public InstanceGeneratorBuilder<D> onCycle(CyclePolicy policy) {
+			if (policy == null) {
+				throw new IllegalArgumentException("A cycle policy is required");
+			}
+			this.cyclePolicy = policy;
+			return this;
+		}
+
+		/**
+		 * Recurse into cycles, generating new instances until a type has been
+		 * repeated the passed in number of times along a branch.
+		 * 
+		 * @param maxRecursionDepth
+		 *            the number of times a type may repeat beneath itself
+		 * @return this for chaining.
+		 * @see CyclePolicy#RECURSE
+		 */
+		public InstanceGeneratorBuilder<D> recurseOnCycle(int maxRecursionDepth) {
+			if (maxRecursionDepth < 0) {
+				throw new IllegalArgumentException("Maximum recursion depth cannot be negative: " + maxRecursionDepth);
+			}
+			this.cyclePolicy = CyclePolicy.RECURSE;
+			this.maxRecursionDepth = maxRecursionDepth;
+			return this;
+		}
+
 		public InstanceGenerator<D> build() {
-			return new InstanceGenerator<D>(rootClassToGenerate, generatorCache, exclusions);
+			return new InstanceGenerator<D>(rootClassToGenerate, generatorCache, exclusions, cyclePolicy,
+					maxRecursionDepth);
 		}
 
 		public <E> InstanceGeneratorBuilder<E> getBuilderForClass(Class<E> clazz) {
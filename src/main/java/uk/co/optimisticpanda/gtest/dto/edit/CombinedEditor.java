@@ -37,6 +37,19 @@ class CombinedEditor implements Editor {
 	 * */
 	@Override
 	public void edit(int index, Object dataItem) {
+		editAll(index, dataItem);
+	}
+
+	@Override
+	public void edit(long index, Object dataItem) {
+		if (index == (int) index) {
+			edit((int) index, dataItem);
+			return;
+		}
+		editAll(index, dataItem);
+	}
+
+	private void editAll(long index, Object dataItem) {
 		for (Editor edit : edits) {
 			edit.edit(index, dataItem);
 		}
@@ -3,6 +3,15 @@ package uk.co.optimisticpanda.gtest.dto.edit;
 /**
  * A change to occur to a dto. This is seperate from whether the change should
  * take place.
+ * <p>
+ * Editors used by a data editor that edits
+ * {@link uk.co.optimisticpanda.gtest.dto.SimpleDataEditor#inParallel(int) in
+ * parallel} are called from many threads at once, each thread with a
+ * different dto. The editors in {@link Editors} only write to the dto they are
+ * passed and are safe to use this way, except for the
+ * {@link IteratingCollectionEditor}, which hands out values in the order it is
+ * called unless it is based on the index.
+ * </p>
  * 
  * @author Andy Lee
  * @param <D>
@@ -20,6 +29,24 @@ public interface Editor {
 	 *            The dto to be edited
 	 */
 	void edit(int index, Object dataItem);
+
+	/**
+	 * Apply the effects of the edit to a dto at an index that may be beyond
+	 * {@link Integer#MAX_VALUE}. Indexes in the range of an int are passed on
+	 * to {@link #edit(int, Object)}. Editors that use the index, or that
+	 * ignore it, override this to accept any index.
+	 * 
+	 * @param index
+	 *            The index of the item to be edited
+	 * @param dataItem
+	 *            The dto to be edited
+	 * @throws ArithmeticException
+	 *             if this editor only supports int indexes and the index is
+	 *             out of that range
+	 */
+	default void edit(long index, Object dataItem) {
+		edit(Math.toIntExact(index), dataItem);
+	}
 	
 	default Editor and(Editor editor){
 		return new CombinedEditor(this, editor);
@@ -5,6 +5,10 @@ import static uk.co.optimisticpanda.gtest.dto.edit.IteratingCollectionEditor.Cyc
 import static uk.co.optimisticpanda.gtest.dto.edit.IteratingCollectionEditor.CycleBehaviour.NULL_FILL;
 import static uk.co.optimisticpanda.gtest.dto.edit.IteratingCollectionEditor.CycleBehaviour.THROW_EXCEPTION;
 
+import java.util.Arrays;
+
+import uk.co.optimisticpanda.gtest.dto.edit.IteratingCollectionEditor.CycleBehaviour;
+
 public class Editors {
 
 	public static IncrementBuilder incrementEach(Object context) {
@@ -47,18 +51,36 @@ public class Editors {
 	public static class CycleBuilder {
 		private Object context;
 		private Object[] values;
+		private boolean basedOnIndex;
 		private CycleBuilder(Object context, Object... values) {
 			this.context = context;
 			this.values = values;
 		}
+		/**
+		 * Use the value at the index of each dto rather than the next value
+		 * each time the editor is called. The editor then keeps no state, so
+		 * can be used to edit in parallel or from any starting index.
+		 * 
+		 * @return this for chaining.
+		 */
+		public CycleBuilder basedOnIndex() {
+			this.basedOnIndex = true;
+			return this;
+		}
+		public Editor andCycle() {
+			return build(CYCLE);
+		}
 		public Editor andLeaveTheRest() {
-			return new IteratingCollectionEditor(context, LEAVE_UNTOUCHED, values);
+			return build(LEAVE_UNTOUCHED);
 		}
 		public Editor andThenFillWithNulls() {
-			return new IteratingCollectionEditor(context, NULL_FILL, values);
+			return build(NULL_FILL);
 		}
 		public Editor andThenThrowException() {
-			return new IteratingCollectionEditor(context, THROW_EXCEPTION, values);
+			return build(THROW_EXCEPTION);
+		}
+		private Editor build(CycleBehaviour behaviour) {
+			return new IteratingCollectionEditor(context, Arrays.asList(values), behaviour, basedOnIndex);
 		}
 	}
 }
@@ -50,6 +50,19 @@ class IncrementingNameEditor extends AbstractEditor {
 	}
 
 	public void edit(int index, Object dataItem) {
+		setName(index, dataItem);
+	}
+
+	@Override
+	public void edit(long index, Object dataItem) {
+		if (index == (int) index) {
+			edit((int) index, dataItem);
+			return;
+		}
+		setName(index, dataItem);
+	}
+
+	private void setName(long index, Object dataItem) {
 		setValue(dataItem, baseNameValue + index);
 	}
 
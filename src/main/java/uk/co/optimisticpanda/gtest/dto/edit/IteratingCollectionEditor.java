@@ -24,6 +24,14 @@ import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
 /**
  * An Edit that will take the next value from a list and set it on a defined
  * property on the passed in data item.
+ * <p>
+ * By default the next value depends on how many times this has been called,
+ * so this is not thread safe and should not be used by a data editor that
+ * edits in parallel. An editor that is based on the index instead uses the
+ * value at the dto's index in the list, applying the {@link CycleBehaviour}
+ * to indexes past the end of it. It keeps no state, so gives the same result
+ * for a dto whatever order dtos are edited in and can start at any index.
+ * </p>
  * 
  * @param <D>
  *            The type of the dtos to be edited.
@@ -34,6 +42,7 @@ public class IteratingCollectionEditor extends AbstractEditor {
 	private final CycleBehaviour cycleBehavior;
 	private final List<?> values;
 	private final int START_VALUE = 0;
+	private final boolean basedOnIndex;
 	private int valuesIndex;
 
 	/**
@@ -77,16 +86,29 @@ public class IteratingCollectionEditor extends AbstractEditor {
 	 *            have been used.
 	 */
 	IteratingCollectionEditor(Object context, List<?> values, CycleBehaviour cycleBehavior) {
-		super(context);
-		this.values = values;
-		this.cycleBehavior = cycleBehavior;
-		this.valuesIndex = START_VALUE;
+		this(context, values, cycleBehavior, false);
 	}
 
 	IteratingCollectionEditor(Object context, CycleBehaviour cycleBehavior, Object... values) {
+		this(context, Arrays.asList(values), cycleBehavior, false);
+	}
+
+	/**
+	 * @param basedOnIndex
+	 *            whether to pick values by the index of the dto rather than by
+	 *            how many times this has been called.
+	 * @throws IllegalArgumentException
+	 *             if an editor based on the index is asked to cycle through
+	 *             an empty list of values.
+	 */
+	IteratingCollectionEditor(Object context, List<?> values, CycleBehaviour cycleBehavior, boolean basedOnIndex) {
 		super(context);
-		this.values = Arrays.asList(values);
+		if (basedOnIndex && cycleBehavior == CycleBehaviour.CYCLE && values.isEmpty()) {
+			throw new IllegalArgumentException("Cannot cycle through an empty list of values by index");
+		}
+		this.values = values;
 		this.cycleBehavior = cycleBehavior;
+		this.basedOnIndex = basedOnIndex;
 		this.valuesIndex = START_VALUE;
 	}
 	
@@ -95,7 +117,24 @@ public class IteratingCollectionEditor extends AbstractEditor {
 	 *      java.lang.Object)
 	 */
 	@Override
-	public void edit(int notUsed, Object dataItem) {
+	public void edit(int index, Object dataItem) {
+		editWith(index, dataItem);
+	}
+
+	@Override
+	public void edit(long index, Object dataItem) {
+		if (index == (int) index) {
+			edit((int) index, dataItem);
+			return;
+		}
+		editWith(index, dataItem);
+	}
+
+	private void editWith(long index, Object dataItem) {
+		if (basedOnIndex) {
+			editAtIndex(index, dataItem);
+			return;
+		}
 		if (valuesIndex < values.size()) {
 			setValue(dataItem, values.get(valuesIndex));
 			valuesIndex++;
@@ -118,12 +157,35 @@ public class IteratingCollectionEditor extends AbstractEditor {
 		}
 	}
 
+	private void editAtIndex(long index, Object dataItem) {
+		int size = values.size();
+		if (index >= 0 && index < size) {
+			setValue(dataItem, values.get((int) index));
+			return;
+		}
+		switch (cycleBehavior) {
+		case CYCLE:
+			setValue(dataItem, values.get((int) Math.floorMod(index, (long) size)));
+			return;
+		case NULL_FILL:
+			setValue(dataItem, null);
+			return;
+		case LEAVE_UNTOUCHED:
+			return;
+		case THROW_EXCEPTION:
+			throw new IndexOutOfBoundsException("There are " + size + " values and none for index " + index);
+		default:
+			throw new IllegalStateException("Cannot deal with CycleBehaviour with value of:" + cycleBehavior.name());
+		}
+	}
+
 	/**
 	 * @return a human readable representation of the changes that are to take
 	 *         place.
 	 */
 	@Override
 	public String toString() {
-		return "ITERATING COLLECTION [SIZE:" + values.size() + " BEHAVIOUR:" + cycleBehavior.name() + "]";
+		return "ITERATING COLLECTION [SIZE:" + values.size() + " BEHAVIOUR:" + cycleBehavior.name()
+				+ (basedOnIndex ? " BY INDEX" : "") + "]";
 	}
 }
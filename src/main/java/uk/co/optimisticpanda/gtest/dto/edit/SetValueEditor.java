@@ -53,6 +53,11 @@ class SetValueEditor extends AbstractEditor {
 		setValue(dataItem, value);
 	}
 
+	@Override
+	public void edit(long index, Object dataItem) {
+		setValue(dataItem, value);
+	}
+
 	/**
 	 * @return a human readable representation of the changes that are to take
 	 *         place.
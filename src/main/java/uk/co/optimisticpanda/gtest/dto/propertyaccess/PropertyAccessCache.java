@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A concurrent, size bounded cache of {@link IPropertyAccess} instances keyed
+ * on the context they were created from. It allows every editor, condition and
+ * generated field that refers to the same property to share a single accessor.
+ * <p>
+ * Once the cache holds more than its maximum size the oldest entries are
+ * evicted first. A maximum size of zero turns caching off. Hits, misses and
+ * evictions are counted so that the effectiveness of the cache can be checked.
+ * </p>
+ * 
+ * @author Andy Lee
+ */
+public class PropertyAccessCache {
+
+	/**
+	 * The maximum number of accessors held unless configured otherwise.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	private final ConcurrentMap<Object, IPropertyAccess> accessors = new ConcurrentHashMap<>();
+	private final Queue<Object> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private volatile int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	/**
+	 * Return the cached accessor for a context, creating and caching one if
+	 * there is none.
+	 * 
+	 * @param context
+	 *            the context the accessor is created from
+	 * @param factory
+	 *            creates the accessor on a miss
+	 * @return the shared accessor for this context
+	 */
+	public IPropertyAccess get(Object context, Function<Object, IPropertyAccess> factory) {
+		IPropertyAccess access = accessors.get(context);
+		if (access != null) {
+			hits.increment();
+			return access;
+		}
+		misses.increment();
+		IPropertyAccess created = factory.apply(context);
+		if (maximumSize <= 0) {
+			return created;
+		}
+		IPropertyAccess existing = accessors.putIfAbsent(context, created);
+		if (existing != null) {
+			return existing;
+		}
+		insertionOrder.add(context);
+		evictExcess();
+		return created;
+	}
+
+	/**
+	 * Remove all cached accessors. The statistics are left untouched.
+	 */
+	public void clear() {
+		accessors.clear();
+		insertionOrder.clear();
+	}
+
+	/**
+	 * @param maximumSize
+	 *            the number of accessors to hold before evicting the oldest.
+	 *            Zero turns caching off.
+	 */
+	public void setMaximumSize(int maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Maximum size cannot be negative: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		evictExcess();
+	}
+
+	/**
+	 * @return the number of accessors held before the oldest are evicted.
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * @return the number of accessors currently cached.
+	 */
+	public int size() {
+		return accessors.size();
+	}
+
+	/**
+	 * @return the number of requests answered from the cache.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of requests that had to create a new accessor.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of accessors removed to keep within the maximum
+	 *         size.
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private void evictExcess() {
+		while (accessors.size() > maximumSize) {
+			Object eldest = insertionOrder.poll();
+			if (eldest == null) {
+				return;
+			}
+			if (accessors.remove(eldest) != null) {
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "PropertyAccessCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + "]";
+	}
+}
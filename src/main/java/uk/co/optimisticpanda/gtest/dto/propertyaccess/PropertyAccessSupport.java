@@ -40,7 +40,8 @@ public abstract class PropertyAccessSupport {
 	}
 
 	/**
-	 * Set the property on this instance to a value.
+	 * Set the property on this instance to a value. Any read of the property
+	 * cached by an open {@link RowReadCache} is forgotten.
 	 * 
 	 * @param instance
 	 *            the instance that should have this property set.
@@ -49,15 +50,23 @@ public abstract class PropertyAccessSupport {
 	 * */
 	protected void setValue(Object instance, Object value) {
 		propertyAccess.setValue(instance, value);
+		if (RowReadCache.anyOpen()) {
+			RowReadCache.written(instance, context);
+		}
 	}
 
 	/**
 	 * Get the value of the represented property from this specific instance.
+	 * If a {@link RowReadCache} is open for the instance the value is read
+	 * once and then reused.
 	 * 
 	 * @param instance
 	 *            the instance that the value will be received from.
 	 * */
 	protected Object getValue(Object instance) {
+		if (RowReadCache.anyOpen()) {
+			return RowReadCache.read(instance, context, propertyAccess);
+		}
 		return propertyAccess.getValue(instance);
 	}
 
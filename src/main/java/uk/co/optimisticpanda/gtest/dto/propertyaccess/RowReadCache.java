@@ -0,0 +1,148 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the properties read from one dto while the rules for it are being
+ * applied, so that conditions and editors that read the same property only
+ * evaluate it once.
+ * <p>
+ * A row is opened for the current thread with {@link #open(Object)} and closed
+ * at the end of the pass, typically with try-with-resources. While it is open,
+ * reads made through {@link PropertyAccessSupport} from that dto are cached by
+ * their context. Writes made through {@link PropertyAccessSupport} to that dto
+ * forget the cached value of the written property and of any property whose
+ * expression overlaps it (one expression starts with the other), or of every
+ * property if the context is not a String.
+ * </p>
+ * <p>
+ * Changes made to the dto in any other way are not seen, so a row should only
+ * be opened when all the rules in the pass edit through
+ * {@link PropertyAccessSupport}.
+ * </p>
+ * <p>
+ * A count of the rows open on any thread is kept so that, while none are,
+ * {@link PropertyAccessSupport} goes straight to the property without looking
+ * up the current row.
+ * </p>
+ *
+ * @author Andy Lee
+ */
+public final class RowReadCache implements AutoCloseable {
+
+	private static final ThreadLocal<RowReadCache> CURRENT = new ThreadLocal<RowReadCache>();
+	private static final AtomicInteger OPEN = new AtomicInteger();
+
+	private final Object dataItem;
+	private final RowReadCache previous;
+	private Map<Object, Object> values;
+	private boolean closed;
+
+	private RowReadCache(Object dataItem, RowReadCache previous) {
+		this.dataItem = dataItem;
+		this.previous = previous;
+	}
+
+	/**
+	 * Start caching reads from the passed in dto on this thread.
+	 *
+	 * @param dataItem
+	 *            the dto whose rules are about to be applied
+	 * @return the open row, which must be closed by the same thread
+	 */
+	public static RowReadCache open(Object dataItem) {
+		RowReadCache row = new RowReadCache(dataItem, CURRENT.get());
+		CURRENT.set(row);
+		OPEN.incrementAndGet();
+		return row;
+	}
+
+	/**
+	 * Stop caching reads for this row, returning to any row that was open
+	 * before it.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		OPEN.decrementAndGet();
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * @return the number of properties currently cached for this row.
+	 */
+	public int size() {
+		return values == null ? 0 : values.size();
+	}
+
+	/**
+	 * @return true if a row may be open on this thread, false if no row is
+	 *         open on any thread
+	 */
+	static boolean anyOpen() {
+		return OPEN.get() != 0;
+	}
+
+	static Object read(Object instance, Object context, IPropertyAccess propertyAccess) {
+		RowReadCache row = CURRENT.get();
+		if (row == null || row.dataItem != instance) {
+			return propertyAccess.getValue(instance);
+		}
+		if (row.values == null) {
+			row.values = new HashMap<Object, Object>();
+		}
+		Object value = row.values.get(context);
+		if (value == null && !row.values.containsKey(context)) {
+			value = propertyAccess.getValue(instance);
+			row.values.put(context, value);
+		}
+		return value;
+	}
+
+	static void written(Object instance, Object context) {
+		RowReadCache row = CURRENT.get();
+		if (row == null || row.values == null || row.dataItem != instance) {
+			return;
+		}
+		if (!(context instanceof String)) {
+			row.values.clear();
+			return;
+		}
+		String written = (String) context;
+		for (Iterator<Object> keys = row.values.keySet().iterator(); keys.hasNext();) {
+			Object key = keys.next();
+			if (!(key instanceof String) || overlaps(written, (String) key)) {
+				keys.remove();
+			}
+		}
+	}
+
+	private static boolean overlaps(String written, String read) {
+		return written.startsWith(read) || read.startsWith(written);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess.handle;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+import uk.co.optimisticpanda.gtest.dto.util.FieldCache;
+
+/**
+ * The getter and setter {@link MethodHandle}s for a single field of a single
+ * class. Handles are resolved once per class and field name and are adapted to
+ * take and return {@link Object} so that they can be invoked exactly.
+ *
+ * @author Andy Lee
+ */
+final class FieldHandles {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final FieldCache FIELDS = new FieldCache();
+	private static final ClassValue<ConcurrentMap<String, FieldHandles>> HANDLES = new ClassValue<ConcurrentMap<String, FieldHandles>>() {
+		@Override
+		protected ConcurrentMap<String, FieldHandles> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<String, FieldHandles>();
+		}
+	};
+
+	private final Class<?> owner;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	private FieldHandles(Class<?> owner, MethodHandle getter, MethodHandle setter) {
+		this.owner = owner;
+		this.getter = getter;
+		this.setter = setter;
+	}
+
+	/**
+	 * Return the handles for the named field, searching the class hierarchy
+	 * of the passed in class.
+	 *
+	 * @param clazz
+	 *            the class of the instance being accessed
+	 * @param fieldName
+	 *            the name of the field
+	 * @return the resolved handles
+	 * @throws PropertyAccessException
+	 *             if the field cannot be found or accessed
+	 */
+	static FieldHandles lookUp(Class<?> clazz, String fieldName) {
+		ConcurrentMap<String, FieldHandles> handles = HANDLES.get(clazz);
+		FieldHandles fieldHandles = handles.get(fieldName);
+		if (fieldHandles == null) {
+			fieldHandles = resolve(clazz, fieldName);
+			FieldHandles existing = handles.putIfAbsent(fieldName, fieldHandles);
+			if (existing != null) {
+				fieldHandles = existing;
+			}
+		}
+		return fieldHandles;
+	}
+
+	/**
+	 * @return the class that these handles were resolved against.
+	 */
+	Class<?> getOwner() {
+		return owner;
+	}
+
+	Object get(Object instance) {
+		try {
+			return (Object) getter.invokeExact(instance);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new PropertyAccessException(e);
+		}
+	}
+
+	void set(Object instance, Object value) {
+		try {
+			setter.invokeExact(instance, value);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new PropertyAccessException(e);
+		}
+	}
+
+	private static FieldHandles resolve(Class<?> clazz, String fieldName) {
+		Field field = FIELDS.get(clazz, fieldName);
+		if (field == null) {
+			throw new PropertyAccessException("Could not find field name called:" + fieldName);
+		}
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle getter = lookup.unreflectGetter(field);
+			MethodHandle setter = lookup.unreflectSetter(field);
+			if (Modifier.isStatic(field.getModifiers())) {
+				getter = MethodHandles.dropArguments(getter, 0, Object.class);
+				setter = MethodHandles.dropArguments(setter, 0, Object.class);
+			}
+			return new FieldHandles(clazz, getter.asType(GETTER_TYPE), setter.asType(SETTER_TYPE));
+		} catch (Exception e) {
+			throw new PropertyAccessException("Could not access field called:" + fieldName, e);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess.handle;
+
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+
+/**
+ * Accesses a named field through cached {@link java.lang.invoke.MethodHandle}s.
+ * The handles for the last class seen are held directly so that the common
+ * case of accessing many instances of the same class skips the look up.
+ *
+ * @author Andy Lee
+ */
+class HandlePropertyAccess implements IPropertyAccess {
+
+	private final String fieldName;
+	private volatile FieldHandles lastSeen;
+
+	public HandlePropertyAccess(String fieldName) {
+		this.fieldName = fieldName;
+	}
+
+	@Override
+	public Object getValue(Object instance) throws PropertyAccessException {
+		return handlesFor(instance).get(instance);
+	}
+
+	@Override
+	public void setValue(Object instance, Object value) throws PropertyAccessException {
+		handlesFor(instance).set(instance, value);
+	}
+
+	private FieldHandles handlesFor(Object instance) {
+		if (instance == null) {
+			throw new PropertyAccessException("Cannot access field called:" + fieldName + " on a null instance");
+		}
+		FieldHandles handles = lastSeen;
+		Class<?> clazz = instance.getClass();
+		if (handles == null || handles.getOwner() != clazz) {
+			handles = FieldHandles.lookUp(clazz, fieldName);
+			lastSeen = handles;
+		}
+		return handles;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess.handle;
+
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessCache;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+
+/**
+ * A {@link IPropertyAccessFactory} that provides field access via
+ * {@link java.lang.invoke.MethodHandle}s. Like the reflection factory it
+ * accepts plain field names, including private and final fields, but each field
+ * is resolved and made accessible only once per class, after which reads and
+ * writes go straight through the cached handles.
+ *
+ * @author Andy Lee
+ */
+public class HandlePropertyAccessFactory implements IPropertyAccessFactory {
+
+	private final PropertyAccessCache cache = new PropertyAccessCache();
+
+	/**
+	 * Creates a new {@link IPropertyAccess} based on the passed in field name.
+	 *
+	 * @param context
+	 *            the name of the field to provide support for.
+	 * @see uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory#createPropertyAccess(java.lang.Object)
+	 */
+	@Override
+	public IPropertyAccess createPropertyAccess(Object context) {
+		if (context instanceof String) {
+			return cache.get(context, fieldName -> new HandlePropertyAccess((String) fieldName));
+		}
+		throw new PropertyAccessException(this.getClass() + " can only accept Strings.");
+	}
+
+	/**
+	 * @return the cache of accessors created by this factory.
+	 */
+	public PropertyAccessCache getCache() {
+		return cache;
+	}
+
+}
@@ -15,23 +15,49 @@
  */
 package uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl;
 
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import ognl.Ognl;
 import ognl.OgnlContext;
 import ognl.OgnlException;
+import ognl.enhance.ExpressionAccessor;
 import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
-import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
 
 class OgnlPropertyAccess implements IPropertyAccess {
 
+	private final String expressionString;
+	private final boolean compile;
+	private final ConcurrentMap<Class<?>, Optional<CompiledAccessor>> compiledAccessors = new ConcurrentHashMap<>();
+	private final ThreadOgnlContext context;
 	private Object expression;
-	private OgnlContext context;
 
 	public OgnlPropertyAccess(String expressionString) {
+		this(expressionString, false, new ThreadOgnlContext(TestUtilsContext.getOgnlContext()));
+	}
+
+	/**
+	 * @param expressionString
+	 *            the ognl expression
+	 * @param compile
+	 *            whether to compile the expression into generated accessor
+	 *            code for each class of root object it is read from. If
+	 *            compilation fails for a class, instances of that class are
+	 *            read and written by the interpreter as normal.
+	 * @param context
+	 *            supplies the ognl context for the calling thread
+	 */
+	OgnlPropertyAccess(String expressionString, boolean compile, ThreadOgnlContext context) {
 		super();
+		this.expressionString = expressionString;
+		this.compile = compile;
+		this.context = context;
 		try {
 			expression = Ognl.parseExpression(expressionString);
-			context = TestUtilsContext.getOgnlContext();
 		} catch (OgnlException e) {
 			throw new RuntimeException(e);
 		}
@@ -43,15 +69,44 @@ class OgnlPropertyAccess implements IPropertyAccess {
 
 	@Override
 	public Object getValue(Object rootObject) throws PropertyAccessException {
-		try {
-			return Ognl.getValue(getExpression(), context, rootObject);
-		} catch (OgnlException e) {
-			throw new PropertyAccessException("Problem parsing expression:", e);
+		OgnlContext context = this.context.get();
+		CompiledAccessor compiled = compiledAccessor(context, rootObject);
+		if (compiled != null && compiled.verified) {
+			try {
+				return compiled.accessor.get(context, rootObject);
+			} catch (LinkageError e) {
+				// the generated code is unusable, so interpret from now on
+				interpretFor(rootObject.getClass());
+			} catch (RuntimeException e) {
+				throw new PropertyAccessException("Problem evaluating expression:", e);
+			}
 		}
+		Object value = interpret(context, rootObject);
+		if (compiled != null && !compiled.verified && value != null) {
+			verify(compiled, context, rootObject, value);
+		}
+		return value;
 	}
 
 	@Override
 	public void setValue(Object rootObject, Object value) throws PropertyAccessException {
+		OgnlContext context = this.context.get();
+		CompiledAccessor compiled = compiledAccessor(context, rootObject);
+		if (compiled != null && compiled.verified && !compiled.setterFailed) {
+			if (compiled.setterVerified) {
+				try {
+					compiled.accessor.set(context, rootObject, value);
+					return;
+				} catch (LinkageError e) {
+					// the generated code is unusable, so interpret from now on
+					compiled.setterFailed = true;
+				} catch (RuntimeException e) {
+					throw new PropertyAccessException("Problem evaluating expression:", e);
+				}
+			} else if (value != null && verifySetter(compiled, context, rootObject, value)) {
+				return;
+			}
+		}
 		try {
 			Ognl.setValue(getExpression(), context, rootObject, value);
 		} catch (OgnlException e) {
@@ -59,4 +114,125 @@ class OgnlPropertyAccess implements IPropertyAccess {
 		}
 	}
 
+	private Object interpret(OgnlContext context, Object rootObject) {
+		try {
+			return Ognl.getValue(getExpression(), context, rootObject);
+		} catch (OgnlException e) {
+			throw new PropertyAccessException("Problem parsing expression:", e);
+		}
+	}
+
+	private CompiledAccessor compiledAccessor(OgnlContext context, Object rootObject) {
+		if (!compile || rootObject == null) {
+			return null;
+		}
+		Optional<CompiledAccessor> accessor = compiledAccessors.get(rootObject.getClass());
+		if (accessor == null) {
+			accessor = compileFor(context, rootObject);
+			Optional<CompiledAccessor> existing = compiledAccessors.putIfAbsent(rootObject.getClass(), accessor);
+			if (existing != null) {
+				accessor = existing;
+			}
+		}
+		return accessor.orElse(null);
+	}
+
+	private Optional<CompiledAccessor> compileFor(OgnlContext context, Object rootObject) {
+		try {
+			ExpressionAccessor accessor = Ognl.compileExpression(context, rootObject, expressionString).getAccessor();
+			if (accessor != null) {
+				return Optional.of(new CompiledAccessor(accessor));
+			}
+		} catch (Exception | LinkageError e) {
+			// fall through to interpreting
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Check that a compiled accessor reads the same value as the interpreter
+	 * before using it. Ognl's compiler does not support every expression the
+	 * interpreter does, for example private fields without getters, and in
+	 * some of those cases generates code that reads the wrong value rather
+	 * than failing. Only non null values are compared, as a new dto whose
+	 * properties are all null would match whatever the compiled code reads.
+	 * The property is read a second time while checking, but only until the
+	 * first non null value has been read.
+	 */
+	private void verify(CompiledAccessor compiled, OgnlContext context, Object rootObject, Object interpretedValue) {
+		try {
+			if (interpretedValue.equals(compiled.accessor.get(context, rootObject))) {
+				compiled.verified = true;
+				return;
+			}
+		} catch (RuntimeException | LinkageError e) {
+			// fall through to interpreting
+		}
+		interpretFor(rootObject.getClass());
+	}
+
+	/**
+	 * Set a value with a compiled accessor whose reads have been verified,
+	 * and check that the verified read then sees that value. A value equal
+	 * to the current one is not written, as it would be read back whether or
+	 * not the compiled code set it. If the value is not read back it is set
+	 * again by the interpreter, and the compiled code is no longer used for
+	 * writes if the property was left unchanged. The property is read twice
+	 * while checking, but only until the first write has been read back.
+	 * 
+	 * @return true if the value was set and read back.
+	 */
+	private boolean verifySetter(CompiledAccessor compiled, OgnlContext context, Object rootObject, Object value) {
+		Object before;
+		try {
+			before = compiled.accessor.get(context, rootObject);
+		} catch (RuntimeException | LinkageError e) {
+			return false;
+		}
+		if (value.equals(before)) {
+			return false;
+		}
+		try {
+			compiled.accessor.set(context, rootObject, value);
+		} catch (LinkageError e) {
+			compiled.setterFailed = true;
+			return false;
+		} catch (RuntimeException e) {
+			throw new PropertyAccessException("Problem evaluating expression:", e);
+		}
+		try {
+			Object after = compiled.accessor.get(context, rootObject);
+			if (value.equals(after)) {
+				compiled.setterVerified = true;
+				return true;
+			}
+			if (Objects.equals(before, after)) {
+				compiled.setterFailed = true;
+			}
+		} catch (RuntimeException | LinkageError e) {
+			compiled.setterFailed = true;
+		}
+		return false;
+	}
+
+	private void interpretFor(Class<?> type) {
+		compiledAccessors.put(type, Optional.empty());
+	}
+
+	/**
+	 * The compiled accessor for one class of root object. Its reads are only
+	 * used once they have been verified against the interpreter, and its
+	 * writes once one has been read back through those reads.
+	 */
+	private static final class CompiledAccessor {
+
+		private final ExpressionAccessor accessor;
+		private volatile boolean verified;
+		private volatile boolean setterVerified;
+		private volatile boolean setterFailed;
+
+		private CompiledAccessor(ExpressionAccessor accessor) {
+			this.accessor = accessor;
+		}
+	}
 }
@@ -15,18 +15,55 @@
  */
 package uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl;
 
+import ognl.OgnlContext;
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessCache;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
 
 /**
  * A {@link IPropertyAccessFactory} that provides property support via the usage
  * of ognl.
+ * <p>
+ * Each expression is parsed (and, if enabled, compiled) once and the
+ * resulting accessor is shared between everything that asks for it, see
+ * {@link PropertyAccessCache}. Accessors are bound to the current ognl context
+ * so the cache is emptied if a different context is configured. The thread
+ * that configured the context uses it directly and every other thread works on
+ * its own copy, as ognl contexts are not thread safe.
+ * </p>
  * 
  * @author Andy Lee
  */
 public class OgnlPropertyAccessFactory implements IPropertyAccessFactory {
 
+	private final boolean compileExpressions;
+	private final PropertyAccessCache cache = new PropertyAccessCache();
+	private volatile ThreadOgnlContext cachedContext = new ThreadOgnlContext(null);
+
+	/**
+	 * Create a factory whose expressions are interpreted.
+	 */
+	public OgnlPropertyAccessFactory() {
+		this(false);
+	}
+
+	/**
+	 * @param compileExpressions
+	 *            whether expressions should be compiled into generated
+	 *            accessor code using ognl's expression compiler. Compilation
+	 *            happens the first time an expression is read from each class
+	 *            of root object. The compiled code is only used for reads
+	 *            once it has read the same non null value as the
+	 *            interpreter, and for writes once a value it has written has
+	 *            been read back. Reads and writes fall back to interpreting
+	 *            the expression if it fails to compile or link.
+	 */
+	public OgnlPropertyAccessFactory(boolean compileExpressions) {
+		this.compileExpressions = compileExpressions;
+	}
+
 	/**
 	 * Creates a new {@link IPropertyAccess} based on a passed in ognl
 	 * expression.
@@ -38,9 +75,40 @@ public class OgnlPropertyAccessFactory implements IPropertyAccessFactory {
 	@Override
 	public IPropertyAccess createPropertyAccess(Object context) {
 		if (context instanceof String) {
-			return new OgnlPropertyAccess((String) context);
+			ThreadOgnlContext ognlContext = currentContext();
+			return cache.get(context, expression -> new OgnlPropertyAccess((String) expression, compileExpressions, ognlContext));
 		}
 		throw new PropertyAccessException(this.getClass() + " can only accept Strings.");
 	}
 
+	private ThreadOgnlContext currentContext() {
+		OgnlContext ognlContext = TestUtilsContext.getOgnlContext();
+		ThreadOgnlContext current = cachedContext;
+		if (ognlContext != current.getConfigured()) {
+			synchronized (this) {
+				current = cachedContext;
+				if (ognlContext != current.getConfigured()) {
+					cache.clear();
+					current = new ThreadOgnlContext(ognlContext);
+					cachedContext = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * @return whether this factory creates compiled expressions.
+	 */
+	public boolean isCompilingExpressions() {
+		return compileExpressions;
+	}
+
+	/**
+	 * @return the cache of accessors created by this factory.
+	 */
+	public PropertyAccessCache getCache() {
+		return cache;
+	}
+
 }
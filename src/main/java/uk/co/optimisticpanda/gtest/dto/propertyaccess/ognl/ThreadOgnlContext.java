@@ -0,0 +1,65 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl;
+
+import java.util.HashMap;
+
+import ognl.OgnlContext;
+
+/**
+ * An {@link OgnlContext} is mutated while expressions are evaluated, so it
+ * cannot be shared between threads. This hands the configured context to the
+ * thread that configured it, so single threaded use behaves exactly as before,
+ * and gives every other thread its own copy taken the first time that thread
+ * needs one.
+ * 
+ * @author Andy Lee
+ */
+final class ThreadOgnlContext {
+
+	private final OgnlContext context;
+	private final Thread owner;
+	private final ThreadLocal<OgnlContext> copies;
+
+	ThreadOgnlContext(OgnlContext context) {
+		this.context = context;
+		this.owner = Thread.currentThread();
+		this.copies = ThreadLocal.withInitial(this::copy);
+	}
+
+	/**
+	 * @return the context for the calling thread
+	 */
+	OgnlContext get() {
+		return Thread.currentThread() == owner ? context : copies.get();
+	}
+
+	/**
+	 * @return the context that was configured
+	 */
+	OgnlContext getConfigured() {
+		return context;
+	}
+
+	@SuppressWarnings("unchecked")
+	private OgnlContext copy() {
+		if (context == null) {
+			return null;
+		}
+		return new OgnlContext(context.getClassResolver(), context.getTypeConverter(), context.getMemberAccess(),
+				new HashMap<Object, Object>(context.getValues()));
+	}
+}
@@ -2,16 +2,23 @@ package uk.co.optimisticpanda.gtest.dto.propertyaccess.rflc;
 
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessCache;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
 
 /**
  * A simple {@link IPropertyAccessFactory} that provides basic property support
  * via the usage of reflection. see ReflectionPropertyAccess
+ * <p>
+ * Accessors are shared between everything that asks for the same property,
+ * see {@link PropertyAccessCache}.
+ * </p>
  * 
  * @author Andy Lee
  */
 public class ReflectionPropertyAccessFactory implements IPropertyAccessFactory {
 
+	private final PropertyAccessCache cache = new PropertyAccessCache();
+
 	/**
 	 * Creates a new {@link IPropertyAccess} based on the passed in property
 	 * name.
@@ -23,9 +30,16 @@ public class ReflectionPropertyAccessFactory implements IPropertyAccessFactory {
 	@Override
 	public IPropertyAccess createPropertyAccess(Object context) {
 		if (context instanceof String) {
-			return new ReflectionPropertyAccess((String) context);
+			return cache.get(context, propertyName -> new ReflectionPropertyAccess((String) propertyName));
 		}
 		throw new PropertyAccessException(this.getClass() + " can only accept Strings.");
 	}
 
+	/**
+	 * @return the cache of accessors created by this factory.
+	 */
+	public PropertyAccessCache getCache() {
+		return cache;
+	}
+
 }
@@ -1,6 +1,7 @@
 package uk.co.optimisticpanda.gtest.dto.rule;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -50,6 +51,21 @@ public class BaseEdit<D> implements Edit<D> {
 		conditions.add(condition);
 		return this;
 	}
+
+	/**
+	 * @return the conditions, any of which being valid causes this rule to
+	 *         fire.
+	 */
+	public List<Condition> getConditions() {
+		return Collections.unmodifiableList(conditions);
+	}
+
+	/**
+	 * @return the action that occurs to the dto when this rule fires.
+	 */
+	public Editor getEditor() {
+		return edit;
+	}
 	
 	/**
 	 * (non-Javadoc)
@@ -58,10 +74,35 @@ public class BaseEdit<D> implements Edit<D> {
 	 *      java.lang.Object)
 	 */
 	public void edit(int index, Object dataItem) {
-		edit.edit(index, dataItem);
+		editWith(index, dataItem);
 	}
 
 	public boolean isValid(int index, D dataItem) {
+		return anyValid(index, dataItem);
+	}
+
+	@Override
+	public void edit(long index, D dataItem) {
+		if (index == (int) index) {
+			edit((int) index, (Object) dataItem);
+			return;
+		}
+		editWith(index, dataItem);
+	}
+
+	@Override
+	public boolean isValid(long index, D dataItem) {
+		if (index == (int) index) {
+			return isValid((int) index, dataItem);
+		}
+		return anyValid(index, dataItem);
+	}
+
+	private void editWith(long index, Object dataItem) {
+		edit.edit(index, dataItem);
+	}
+
+	private boolean anyValid(long index, D dataItem) {
 		for (Condition condition : conditions) {
 			if (condition.isValid(index, dataItem)) {
 				return true;
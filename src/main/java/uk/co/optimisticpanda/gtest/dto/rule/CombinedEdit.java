@@ -16,6 +16,7 @@
 package uk.co.optimisticpanda.gtest.dto.rule;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,14 +42,20 @@ public class CombinedEdit<D> implements Edit<D> {
 		return this;
 	}
 
+	/**
+	 * @return the wrapped rules, in the order they are applied.
+	 */
+	public List<Edit<D>> getEdits() {
+		return Collections.unmodifiableList(list);
+	}
+
 	/**
 	 * @see uk.co.optimisticpanda.gtest.dto.rule.Edit#edit(int,
 	 *      java.lang.Object)
 	 */
 	@Override
 	public void edit(int index, D data) {
-		list.stream().filter(r -> r.isValid(index, data))
-					 .forEach(r -> r.edit(index, data));
+		editMatching(index, data);
 	}
 
 	/**
@@ -59,4 +66,23 @@ public class CombinedEdit<D> implements Edit<D> {
 		return true;
 	}
 
+	@Override
+	public void edit(long index, D data) {
+		if (index == (int) index) {
+			edit((int) index, data);
+			return;
+		}
+		editMatching(index, data);
+	}
+
+	private void editMatching(long index, D data) {
+		list.stream().filter(r -> r.isValid(index, data))
+					 .forEach(r -> r.edit(index, data));
+	}
+
+	@Override
+	public boolean isValid(long index, D dataItem) {
+		return true;
+	}
+
 }
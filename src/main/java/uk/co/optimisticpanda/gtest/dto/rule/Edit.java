@@ -36,5 +36,32 @@ public interface Edit<D> {
      * @return true if the rule should be applied to this rule.
      */
     public boolean isValid(int index, D dataItem );
+
+    /**
+     * The change that should occur to a data item at an index that may be
+     * beyond {@link Integer#MAX_VALUE}. By default indexes in the range of an
+     * int are passed on to {@link #edit(int, Object)}.
+     * @param index the index of the data item that can be used in the edit.
+     * @param data the data item.
+     * @throws ArithmeticException if this rule only supports int indexes and
+     *         the index is out of that range
+     */
+    default void edit(long index, D data) {
+        edit(Math.toIntExact(index), data);
+    }
+
+    /**
+     * Whether the rule applies to a data item at an index that may be beyond
+     * {@link Integer#MAX_VALUE}. By default indexes in the range of an int
+     * are passed on to {@link #isValid(int, Object)}.
+     * @param index The index of the data item.
+     * @param dataItem The data item that is being checked.
+     * @return true if the rule should be applied to this rule.
+     * @throws ArithmeticException if this rule only supports int indexes and
+     *         the index is out of that range
+     */
+    default boolean isValid(long index, D dataItem) {
+        return isValid(Math.toIntExact(index), dataItem);
+    }
     
 }
@@ -16,84 +16,81 @@
 package uk.co.optimisticpanda.gtest.dto.util;
 
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * @author Andy Lee A reflection helper
+ *         <p>
+ *         Holds a table of fields for each class, built once the first time a
+ *         class is looked up. The table covers the whole class hierarchy, with
+ *         fields declared on a subclass hiding any of the same name further up,
+ *         and every field in it has already been made accessible.
+ *         </p>
+ *         <p>
+ *         Tables are held in a {@link ClassValue} so reads never contend and
+ *         the tables go away with their class when its classloader is
+ *         unloaded.
+ *         </p>
  */
 public class FieldCache {
-	Map<FieldInfo, Field> cache = new HashMap<>();
+
+	private static final ClassValue<Map<String, Field>> FIELDS = new ClassValue<Map<String, Field>>() {
+		@Override
+		protected Map<String, Field> computeValue(Class<?> clazz) {
+			return buildFieldTable(clazz);
+		}
+	};
 
 	/**
 	 * Store a new field in the cache. The field is keyed upon the class and
 	 * field name combined.
-	 * 
+	 *
 	 * @param clazz
 	 * @param fieldName
 	 * @param field
+	 * @deprecated fields are found the first time their class is looked up,
+	 *             so there is nothing to store. This does nothing and will be
+	 *             removed.
 	 */
+	@Deprecated
 	public void put(Class<?> clazz, String fieldName, Field field) {
-		cache.put(new FieldInfo(clazz, fieldName), field);
+		// fields are looked up from the class itself
 	}
 
 	/**
-	 * Return the field based on a class and the name of the field.
+	 * Return the field based on a class and the name of the field. The field
+	 * may be declared on the class or on any of its superclasses.
+	 * 
 	 * @param clazz
 	 * @param fieldName
-	 * @return field
+	 * @return field, or null if there is no field of that name
 	 */
 	public Field get(Class<?> clazz, String fieldName) {
-		return cache.get(new FieldInfo(clazz, fieldName));
+		return FIELDS.get(clazz).get(fieldName);
 	}
 
-	/**
-	 * Used as the key in the cache map.
-	 * */
-	private class FieldInfo {
-		private final Class<?> classFieldIsOn;
-		private final String fieldName;
-
-		private FieldInfo(Class<?> clazz, String fieldName) {
-			this.classFieldIsOn = clazz;
-			this.fieldName = fieldName;
-		}
-
-		/**
-		 * @see java.lang.Object#hashCode()
-		 */
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((classFieldIsOn == null) ? 0 : classFieldIsOn.hashCode());
-			result = prime * result + ((fieldName == null) ? 0 : fieldName.hashCode());
-			return result;
+	private static Map<String, Field> buildFieldTable(Class<?> clazz) {
+		Map<String, Field> fields = new HashMap<>();
+		Class<?> currentClazz = clazz;
+		while (currentClazz != null) {
+			for (Field field : currentClazz.getDeclaredFields()) {
+				if (!fields.containsKey(field.getName())) {
+					makeAccessible(field);
+					fields.put(field.getName(), field);
+				}
+			}
+			currentClazz = currentClazz.getSuperclass();
 		}
+		return Collections.unmodifiableMap(fields);
+	}
 
-		/**
-		 * @see java.lang.Object#equals(java.lang.Object)
-		 */
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			FieldInfo other = (FieldInfo) obj;
-			if (classFieldIsOn == null) {
-				if (other.classFieldIsOn != null)
-					return false;
-			} else if (!classFieldIsOn.equals(other.classFieldIsOn))
-				return false;
-			if (fieldName == null) {
-				if (other.fieldName != null)
-					return false;
-			} else if (!fieldName.equals(other.fieldName))
-				return false;
-			return true;
+	private static void makeAccessible(Field field) {
+		try {
+			field.setAccessible(true);
+		} catch (RuntimeException e) {
+			// Left inaccessible, so using it reports an access failure.
 		}
 	}
 }
@@ -18,6 +18,12 @@ public class FunctionUtils {
 		}
 	};
 
+	/**
+	 * @return a function that pairs each item with a count of the items it has
+	 *         seen before. The count is shared by every call, so this gives
+	 *         the position in the stream only when used with sequential
+	 *         streams.
+	 */
 	public static <T> Function<T, IndexedItem<T>> indexed() {
 		AtomicInteger count = new AtomicInteger();
 		return (t) -> new IndexedItem<T>(count.getAndIncrement(), t);
@@ -32,6 +38,20 @@ public class FunctionUtils {
 			this.item = item;
 		}
 	}
+
+	/**
+	 * An item paired with an index that may be beyond
+	 * {@link Integer#MAX_VALUE}.
+	 */
+	public static class LongIndexedItem<T> {
+		public final long index;
+		public final T item;
+
+		public LongIndexedItem(long index, T item) {
+			this.index = index;
+			this.item = item;
+		}
+	}
 	
 	public static class Suppliers{
 		public static <T> Supplier<T> of(T instance) {
@@ -26,11 +26,11 @@ import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
 public class PrivateFieldHelper {
 
 	/**
-	 * Helper class to aid with introspection. It stores fields in a cache to
-	 * reduce reflection related performance hits.
+	 * Helper class to aid with introspection. It stores fields, already made
+	 * accessible, in a cache to reduce reflection related performance hits.
 	 * 
 	 */
-	private static FieldCache cache = new FieldCache();
+	private static final FieldCache cache = new FieldCache();
 	private final String fieldName;
 
 	/**
@@ -54,19 +54,11 @@ public class PrivateFieldHelper {
 	@SuppressWarnings("unchecked")
 	public <F> F get(Object instance) {
 		Field privateField = getField(instance.getClass());
-		boolean accessible = privateField.isAccessible();
-		privateField.setAccessible(true);
-
-		F result;
 		try {
-			result = (F) privateField.get(instance);
+			return (F) privateField.get(instance);
 		} catch (Exception e) {
 			throw new PropertyAccessException(e);
-		} finally {
-			privateField.setAccessible(accessible);
 		}
-
-		return result;
 	}
 
 	/**
@@ -79,51 +71,19 @@ public class PrivateFieldHelper {
 	 */
 	public void set(Object instance, Object value) {
 		Field privateField = getField(instance.getClass());
-		boolean accessible = privateField.isAccessible();
-
 		try {
-			privateField.setAccessible(true);
 			privateField.set(instance, value);
 		} catch (Exception e) {
 			throw new PropertyAccessException(e);
-		} finally {
-			privateField.setAccessible(accessible);
 		}
 	}
 
 	private Field getField(Class<?> clazz) {
-		Field field = searchClassHierachy(clazz);
+		Field field = cache.get(clazz, fieldName);
 		if (field == null) {
 			throw new PropertyAccessException("Could not find field name called:" + fieldName);
 		}
-		if (cache.get(clazz, fieldName) == null) {
-			cache.put(clazz, fieldName, field);
-		}
 		return field;
 	}
 
-	private Field searchClassHierachy(Class<?> clazz) {
-		Class<?> currentClazz = clazz;
-		while (currentClazz != null) {
-			Field field = getFromClassOrCache(clazz);
-			if (field != null) {
-				return field;
-			}
-			currentClazz = currentClazz.getSuperclass();
-		}
-		return null;
-
-	}
-
-	private Field getFromClassOrCache(Class<?> clazz) {
-		try {
-			Field field = cache.get(clazz, fieldName);
-			return field != null ? field : clazz.getDeclaredField(fieldName);
-		} catch (SecurityException e) {
-			return null;
-		} catch (NoSuchFieldException e) {
-			return null;
-		}
-	}
-
 }
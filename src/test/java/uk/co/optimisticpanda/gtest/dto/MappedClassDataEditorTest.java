@@ -18,7 +18,9 @@ package uk.co.optimisticpanda.gtest.dto;
 import static org.assertj.core.api.Assertions.assertThat;
 import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.always;
 
+import java.io.Serializable;
 import java.util.Arrays;
+import java.util.List;
 
 import junit.framework.TestCase;
 import uk.co.optimisticpanda.gtest.dto.edit.Editor;
@@ -62,6 +64,69 @@ public class MappedClassDataEditorTest extends TestCase{
         assertThat(dto2.getName()).isEqualTo(CHANGE_FOR_DTO2);
 
     }
-   
-    
+
+    public void testMappedClassDataEditorInParallel(){
+        Edit<TestDto1> rule1 = new BaseEdit<TestDto1>(incrementEach("name").withBase(CHANGE_FOR_DTO1), always());
+        Edit<TestDto2> rule2 = new BaseEdit<TestDto2>(incrementEach("name").withBase(CHANGE_FOR_DTO2), always());
+
+        MappedClassDataEditor editor = new MappedClassDataEditor().inParallel(2);
+        editor.addEditForClass(TestDto1.class, rule1);
+        editor.addEditForClass(TestDto2.class, rule2);
+
+        TestDto1 dto1 = new TestDto1("name");
+        TestDto2 dto2 = new TestDto2("name", "description");
+
+        try {
+            editor.edit(Arrays.asList(dto1, dto2));
+        } finally {
+            editor.close();
+        }
+
+        assertThat(dto1.getName()).isEqualTo(CHANGE_FOR_DTO1 + 0);
+        assertThat(dto2.getName()).isEqualTo(CHANGE_FOR_DTO2 + 1);
+    }
+
+    public void testRulesForSuperclassesAndInterfacesAreApplied(){
+        MappedClassDataEditor editor = new MappedClassDataEditor();
+        editor.addEditForClass(TestDto1.class, new BaseEdit<TestDto1>(changeValueOf("name").to(CHANGE_FOR_DTO1), always()));
+        editor.addEditForClass(Serializable.class, new BaseEdit<Serializable>(changeValueOf("name").to("GENERAL"), always()));
+
+        TestDto1 dto1 = new TestDto1("name");
+        ProxiedDto1 proxy = new ProxiedDto1();
+        TestDto2 unmapped = new TestDto2("name", "description");
+
+        editor.edit(Arrays.asList(dto1, proxy, unmapped));
+
+        assertThat(dto1.getName()).isEqualTo(CHANGE_FOR_DTO1);
+        assertThat(proxy.getName()).isEqualTo(CHANGE_FOR_DTO1);
+        assertThat(unmapped.getName()).isEqualTo("name");
+
+        editor.addEditForClass(ProxiedDto1.class, new BaseEdit<ProxiedDto1>(changeValueOf("name").to("PROXY"), always()));
+        editor.edit(0, proxy);
+        assertThat(proxy.getName()).isEqualTo("PROXY");
+    }
+
+    public void testGroupingByTypeKeepsIndexesAndListOrder(){
+        MappedClassDataEditor editor = new MappedClassDataEditor().groupingByType();
+        editor.addEditForClass(TestDto1.class, new BaseEdit<TestDto1>(incrementEach("name").withBase(CHANGE_FOR_DTO1), always()));
+        editor.addEditForClass(TestDto2.class, new BaseEdit<TestDto2>(incrementEach("name").withBase(CHANGE_FOR_DTO2), always()));
+
+        List<Object> dtos = Arrays.asList(new TestDto1("a"), new TestDto2("b", "c"), new TestDto1("d"), new TestDto2("e", "f"));
+        editor.edit(dtos);
+
+        assertThat(dtos).extracting("name").containsExactly(CHANGE_FOR_DTO1 + 0, CHANGE_FOR_DTO2 + 1, CHANGE_FOR_DTO1 + 2,
+                CHANGE_FOR_DTO2 + 3);
+    }
+
+    /**
+     * Stands in for a generated proxy of a dto.
+     */
+    public static class ProxiedDto1 extends TestDto1 implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public ProxiedDto1() {
+            super("proxy");
+        }
+    }
+
 }
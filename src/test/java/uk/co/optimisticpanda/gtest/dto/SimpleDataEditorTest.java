@@ -20,12 +20,15 @@ import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.index;
 import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.valueOf;
 import static uk.co.optimisticpanda.gtest.dto.edit.Editors.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
 
 import junit.framework.TestCase;
 import uk.co.optimisticpanda.gtest.dto.edit.Editor;
 import uk.co.optimisticpanda.gtest.dto.rule.BaseEdit;
+import uk.co.optimisticpanda.gtest.dto.rule.CombinedEdit;
 import uk.co.optimisticpanda.gtest.dto.rule.Edit;
 import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto1;
 /**
@@ -151,4 +154,139 @@ public class SimpleDataEditorTest extends TestCase {
         assertThat(list.get(0).getName()).isEqualTo("CENSORED");
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testCompiledEditorAppliesTheSameRules() throws Exception {
+        Editor editor = changeValueOf("name").to("CENSORED");
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.create();
+        dataEditor.add(new BaseEdit<TestDto1>(editor, index().is(4)).or(valueOf("name").is("HELLO")));
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("SEEN"), valueOf("name").is("CENSORED")));
+
+        CompiledDataEditor<TestDto1> compiled = dataEditor.compile();
+        compiled.edit(list);
+
+        assertThat(compiled.getRuleCount()).isEqualTo(2);
+        assertThat(list.get(0).getName()).isEqualTo("0");
+        assertThat(list.get(3).getName()).isEqualTo("3");
+        assertThat(list.get(4).getName()).isEqualTo("SEEN");
+        assertThat(list.get(6).getName()).isEqualTo("SEEN");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompiledEditorFlattensCombinedEdits() throws Exception {
+        CombinedEdit<TestDto1> combined = new CombinedEdit<TestDto1>()
+                .addEdit(new BaseEdit<TestDto1>(changeValueOf("name").to("EVEN"), index().isEven()))
+                .addEdit(new BaseEdit<TestDto1>(changeValueOf("name").to("FOUR"), index().is(4)));
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.create();
+        dataEditor.add(combined);
+
+        CompiledDataEditor<TestDto1> compiled = dataEditor.compile();
+        compiled.edit(list);
+
+        assertThat(compiled.getRuleCount()).isEqualTo(2);
+        assertThat(list.get(0).getName()).isEqualTo("EVEN");
+        assertThat(list.get(1).getName()).isEqualTo("1");
+        assertThat(list.get(4).getName()).isEqualTo("FOUR");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompiledEditorIsASnapshot() throws Exception {
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.create();
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("CENSORED"), index().is(1)));
+        CompiledDataEditor<TestDto1> compiled = dataEditor.compile();
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("LATER"), index().is(2)));
+
+        compiled.edit(list);
+
+        assertThat(list.get(1).getName()).isEqualTo("CENSORED");
+        assertThat(list.get(2).getName()).isEqualTo("2");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompiledEditorMixesIndexAndValueConditions() throws Exception {
+        Edit<TestDto1> rule = new BaseEdit<TestDto1>(changeValueOf("name").to("CENSORED"), index().isOdd().and(index().is(3)))
+                .or(valueOf("name").is("HELLO"));
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.create();
+        dataEditor.add(rule);
+
+        dataEditor.compile().edit(list);
+
+        assertThat(list.get(1).getName()).isEqualTo("1");
+        assertThat(list.get(3).getName()).isEqualTo("CENSORED");
+        assertThat(list.get(5).getName()).isEqualTo("5");
+        assertThat(list.get(6).getName()).isEqualTo("CENSORED");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompiledEditorDispatchesOnValues() throws Exception {
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.create();
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("one"), valueOf("name").is("1")));
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("three"), valueOf("name").is("3")));
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("THREE"), valueOf("name").is("three")));
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("ignored"), valueOf("name").is("1")));
+        dataEditor.add(new BaseEdit<TestDto1>(changeValueOf("name").to("nothing"), valueOf("name").is(null)));
+
+        CompiledDataEditor<TestDto1> compiled = dataEditor.compile();
+        compiled.edit(list);
+
+        assertThat(compiled.getRuleCount()).isEqualTo(1);
+        assertThat(list.get(0).getName()).isEqualTo("0");
+        assertThat(list.get(1).getName()).isEqualTo("one");
+        assertThat(list.get(3).getName()).isEqualTo("THREE");
+        assertThat(list.get(6).getName()).isEqualTo("HELLO");
+        assertThat(compiled.edit(0, new TestDto1(null)).getName()).isEqualTo("nothing");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testParallelEditUsesEachDtosOwnIndex() throws Exception {
+        List<TestDto1> dtos = new ArrayList<TestDto1>();
+        for (int i = 0; i < 10000; i++) {
+            dtos.add(new TestDto1("" + i));
+        }
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.<TestDto1> create()
+                .add(new BaseEdit<TestDto1>(incrementEach("name").withBase("even-"), index().isEven()))
+                .inParallel(4);
+
+        List<TestDto1> linked = new LinkedList<TestDto1>(Arrays.asList(new TestDto1("0"), new TestDto1("1")));
+        try {
+            dataEditor.edit(dtos);
+            dataEditor.compile().edit(linked);
+        } finally {
+            dataEditor.close();
+        }
+
+        for (int i = 0; i < dtos.size(); i++) {
+            assertThat(dtos.get(i).getName()).isEqualTo(i % 2 == 0 ? "even-" + i : "" + i);
+        }
+        assertThat(linked.get(0).getName()).isEqualTo("even-0");
+        assertThat(linked.get(1).getName()).isEqualTo("1");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testClosingAParallelEditorEditsOneDtoAfterAnother() throws Exception {
+        SimpleDataEditor<TestDto1> dataEditor = SimpleDataEditor.<TestDto1> create()
+                .add(new BaseEdit<TestDto1>(incrementEach("name").withBase("even-"), index().isEven()))
+                .inParallel(2);
+        dataEditor.close();
+
+        List<TestDto1> dtos = new ArrayList<TestDto1>(Arrays.asList(new TestDto1("0"), new TestDto1("1")));
+        dataEditor.edit(dtos);
+
+        assertThat(dtos.get(0).getName()).isEqualTo("even-0");
+        assertThat(dtos.get(1).getName()).isEqualTo("1");
+    }
+
 }
@@ -16,6 +16,7 @@
 package uk.co.optimisticpanda.gtest.dto;
 import static org.assertj.core.api.Assertions.assertThat;
 import junit.framework.TestCase;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.handle.HandlePropertyAccessFactory;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl.OgnlPropertyAccessFactory;
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.rflc.ReflectionPropertyAccessFactory;
 
@@ -66,4 +67,15 @@ public class TestUtilsContextTest extends TestCase {
 		assertThat(TestUtilsContext.getPropertyAccessFactory()).isNotNull();
 		assertThat(TestUtilsContext.getPropertyAccessFactory() instanceof ReflectionPropertyAccessFactory).isTrue();
 	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testUseHandles() throws Exception {
+		TestUtilsContext.clearContext();
+		TestUtilsContext.useHandles();
+		assertThat((Object)TestUtilsContext.getOgnlContext()).isNull();
+		assertThat(TestUtilsContext.getPropertyAccessFactory()).isNotNull();
+		assertThat(TestUtilsContext.getPropertyAccessFactory() instanceof HandlePropertyAccessFactory).isTrue();
+	}
 }
@@ -17,6 +17,9 @@ package uk.co.optimisticpanda.gtest.dto.condition;
 import static org.assertj.core.api.Assertions.assertThat;
 import static uk.co.optimisticpanda.gtest.dto.condition.CombinedCondition.BoolOp.AND;
 import static uk.co.optimisticpanda.gtest.dto.condition.CombinedCondition.BoolOp.OR;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.TestCase;
 
 import org.assertj.core.api.AbstractBooleanAssert;
@@ -63,5 +66,94 @@ public class CombinedConditionTest extends TestCase {
         CombinedCondition condition = new CombinedCondition(opp, conditions);
         return assertThat(condition.isValid(-1, null));
     }
-    
+
+    /**
+     * @throws Exception
+     */
+    public void testSelectMatchesIsValid() throws Exception {
+        Condition condition = new NotCondition(EvenOddCondition.EVEN.and(new NthPlaceCondition(3)))
+                .or(new IndexCondition(6));
+        assertThat(condition.isIndexOnly()).isTrue();
+        BitSet selected = condition.select(2, 40);
+        for (int index = 2; index < 40; index++) {
+            assertThat(selected.get(index - 2)).isEqualTo(condition.isValid(index, null));
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testSelectingAConditionThatLooksAtTheDtoFails() throws Exception {
+        Condition condition = EvenOddCondition.EVEN.and(new Condition() {
+            @Override
+            public <D> boolean isValid(int index, D dataItem) {
+                return dataItem != null;
+            }
+        });
+        assertThat(condition.isIndexOnly()).isFalse();
+        try {
+            condition.select(0, 10);
+            fail("Should not be able to select a condition that looks at the dto");
+        } catch (UnsupportedOperationException e) {
+            // do nothing
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCombinedConditionsShortCircuit() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        Condition counting = counting(count, true);
+
+        assertThat(new CombinedCondition(AND, falseCondition, counting).isValid(0, null)).isFalse();
+        assertThat(new CombinedCondition(OR, trueCondition, counting).isValid(0, null)).isTrue();
+        assertThat(count.get()).isEqualTo(0);
+
+        assertThat(new CombinedCondition(AND, trueCondition, counting).isValid(0, null)).isTrue();
+        assertThat(count.get()).isEqualTo(1);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testOptimisedConditionChecksIndexConditionsFirst() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        Condition condition = Conditions.optimise(counting(count, true).and(EvenOddCondition.EVEN));
+
+        assertThat(condition.isValid(1, "a")).isFalse();
+        assertThat(count.get()).isEqualTo(0);
+        assertThat(condition.isValid(2, "a")).isTrue();
+        assertThat(count.get()).isEqualTo(1);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testOptimisedConditionReordersByHowOftenConditionsDecide() throws Exception {
+        Condition rarelyFails = new NotCondition(new IndexCondition(-1));
+        Condition oftenFails = new NthPlaceCondition(10);
+        Condition original = new CombinedCondition(AND, rarelyFails, oftenFails);
+        OptimisedCondition optimised = (OptimisedCondition) Conditions.optimise(original);
+
+        assertThat(optimised.getOrder()).containsExactly(rarelyFails, oftenFails);
+        for (int index = 0; index < OptimisedCondition.REORDER_INTERVAL; index++) {
+            assertThat(optimised.isValid(index, null)).isEqualTo(original.isValid(index, null));
+        }
+        assertThat(optimised.getOrder()).containsExactly(oftenFails, rarelyFails);
+        for (int index = 0; index < 100; index++) {
+            assertThat(optimised.isValid(index, null)).isEqualTo(original.isValid(index, null));
+        }
+    }
+
+    private Condition counting(AtomicInteger count, boolean result) {
+        return new Condition() {
+            @Override
+            public <D> boolean isValid(int index, D dataItem) {
+                count.incrementAndGet();
+                return result;
+            }
+        };
+    }
+
 }
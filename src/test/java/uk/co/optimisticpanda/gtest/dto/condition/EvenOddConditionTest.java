@@ -73,4 +73,22 @@ public class EvenOddConditionTest extends TestCase {
         assertThat(odd.isValid(3, null)).isTrue();
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testSelect() throws Exception {
+        assertThat(even.select(0, 5).toString()).isEqualTo("{0, 2, 4}");
+        assertThat(even.select(1, 5).toString()).isEqualTo("{1, 3}");
+        assertThat(odd.select(1, 5).toString()).isEqualTo("{0, 2}");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIndexesBeyondAnInt() throws Exception {
+        assertThat(even.isValid(4000000000L, null)).isTrue();
+        assertThat(odd.isValid(4000000001L, null)).isTrue();
+        assertThat(even.and(Conditions.not(odd)).isValid(4000000002L, null)).isTrue();
+        assertThat(even.or(odd).isValid(4000000003L, null)).isTrue();
+    }
 }
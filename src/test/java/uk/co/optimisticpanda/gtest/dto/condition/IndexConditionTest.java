@@ -75,4 +75,12 @@ public class IndexConditionTest extends TestCase {
         assertThat(primIndexCondition.isValid(567, null)).isTrue();
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testSelect() throws Exception {
+        assertThat(index().is(3).select(0, 5).toString()).isEqualTo("{3}");
+        assertThat(index().is(3).select(2, 5).toString()).isEqualTo("{1}");
+        assertThat(index().is(7).select(0, 5).isEmpty()).isTrue();
+    }
 }
@@ -2,6 +2,8 @@ package uk.co.optimisticpanda.gtest.dto.condition;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.everyNth;
+import java.util.BitSet;
+
 import junit.framework.TestCase;
 
 public class NthPlaceConditionTest extends TestCase{
@@ -32,4 +34,10 @@ public class NthPlaceConditionTest extends TestCase{
         assertThat(condition.isValid(9, null)).isTrue();
     }
 
+    public void testSelectEveryNth(){
+        Condition condition = everyNth(3);
+        BitSet selected = condition.select(4, 14);
+        assertThat(condition.isIndexOnly()).isTrue();
+        assertThat(selected.toString()).isEqualTo("{2, 5, 8}");
+    }
 }
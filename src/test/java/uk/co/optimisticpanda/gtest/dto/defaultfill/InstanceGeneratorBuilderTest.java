@@ -17,6 +17,7 @@ package uk.co.optimisticpanda.gtest.dto.defaultfill;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.junit.Assert;
@@ -24,9 +25,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.CyclePolicy;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator.InstanceGeneratorBuilder;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGeneratorException;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
 import uk.co.optimisticpanda.gtest.dto.test.utils.DetailedTestDto;
 import uk.co.optimisticpanda.gtest.dto.test.utils.DetailedTestDtoComposite;
 import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto2;
@@ -100,6 +103,47 @@ public class InstanceGeneratorBuilderTest {
 		}
 	}
 
+	/**
+	 * Cycles are left null by default rather than looping forever
+	 */
+	@Test
+	public void cyclesAreNulledOutByDefault() {
+		InstanceGenerator<DetailedTestDtoComposite> generator = InstanceGenerator.create(DetailedTestDtoComposite.class);
+
+		DetailedTestDtoComposite item = generator.generate();
+		assertThat(item.getParent()).isNull();
+		assertThat(item.getName()).isEqualTo("DEFAULT");
+		assertThat(item.getChildren()).isEmpty();
+	}
+
+	/**
+	 * Cycles can point back to the instance further up the branch
+	 */
+	@Test
+	public void cyclesCanReuseTheAncestor() {
+		InstanceGenerator<DetailedTestDtoComposite> generator = InstanceGenerator.of(DetailedTestDtoComposite.class)
+				.onCycle(CyclePolicy.REUSE_ANCESTOR).build();
+
+		DetailedTestDtoComposite item = generator.generate();
+		assertThat(item.getParent()).isSameAs(item);
+		assertThat(generator.generate().getParent()).isNotSameAs(item);
+	}
+
+	/**
+	 * Cycles can be followed to a limited depth
+	 */
+	@Test
+	public void cyclesCanRecurseToADepth() {
+		InstanceGenerator<DetailedTestDtoComposite> generator = InstanceGenerator.of(DetailedTestDtoComposite.class)
+				.recurseOnCycle(2).build();
+
+		DetailedTestDtoComposite item = generator.generate();
+		assertThat(item.getParent()).isNotNull().isNotSameAs(item);
+		assertThat(item.getParent().getParent()).isNotNull();
+		assertThat(item.getParent().getParent().getName()).isEqualTo("DEFAULT");
+		assertThat(item.getParent().getParent().getParent()).isNull();
+	}
+
 	/**
 	 * test registering a value generator for class/propertyname/propertytype:
 	 * on type to type
@@ -243,4 +287,33 @@ public class InstanceGeneratorBuilderTest {
 			Assert.fail("shouldn't overflow as the parent path is excluded");
 		}
 	}
+
+	@Test
+	public void propertyAccessIsResolvedOnceWhenBuilt() throws Exception {
+		IPropertyAccessFactory ognlFactory = TestUtilsContext.getPropertyAccessFactory();
+		AtomicInteger created = new AtomicInteger();
+		TestUtilsContext.setPropertyAccessFactory(context -> {
+			created.incrementAndGet();
+			return ognlFactory.createPropertyAccess(context);
+		});
+
+		InstanceGenerator<TestDto2> generator = InstanceGenerator.create(TestDto2.class);
+		int createdWhenBuilt = created.get();
+		assertThat(createdWhenBuilt).isGreaterThan(0);
+
+		generator.generate();
+		generator.generate();
+		assertThat(created.get()).isEqualTo(createdWhenBuilt);
+	}
+
+	@Test
+	public void generatorsRegisteredAfterBuildingArePickedUp() throws Exception {
+		ValueGenerator cache = new DefaultValueGenerator();
+		InstanceGenerator<TestDto2> generator = InstanceGenerator.create(TestDto2.class, cache);
+		assertThat(generator.generate().getName()).isEqualTo("DEFAULT");
+
+		cache.registerAPropertyNameAndTypeGenerator("name", String.class, nameGen);
+		assertThat(generator.generate().getName()).isEqualTo("editedName");
+		assertThat(generator.generate().getDescription()).isEqualTo("DEFAULT");
+	}
 }
@@ -89,13 +89,40 @@ public class ValueGeneratorCacheTest extends TestCase {
 	 */
 	public void testClearCache() throws Exception {
 		valueGeneratorCache.clear();
-		ValueGenerator cache = (ValueGenerator) valueGeneratorCache;
+		ValueGenerator cache = valueGeneratorCache;
 		assertThat(cache.classAndPropertyNameAndTypeCache.isEmpty()).isTrue();
 		assertThat(cache.propertyDepthCache.isEmpty()).isTrue();
 		assertThat(cache.propertyNameAndTypeCache.isEmpty()).isTrue();
 		assertThat(cache.typeCache.isEmpty()).isTrue();
 	}
 
+	/**
+	 * @throws Exception
+	 */
+	public void testLookUpsAreRemembered() throws Exception {
+		Field name = field(TestDto1.class, "name");
+		Supplier<?> generator = valueGeneratorCache.lookUpGenerator("name", name);
+		assertThat(valueGeneratorCache.lookUpGenerator("name", name)).isSameAs(generator);
+		assertThat(valueGeneratorCache.lookUpGenerator("child.name", name).get()).isEqualTo("3");
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testRegisteringForgetsRememberedLookUps() throws Exception {
+		Field name = field(TestDto1.class, "name");
+		assertThat(valueGeneratorCache.lookUpGenerator("name", name).get()).isEqualTo("3");
+
+		valueGeneratorCache.registerAClassNamePropertyNameGenerator(TestDto1.class, "name", () -> "5");
+		assertThat(valueGeneratorCache.lookUpGenerator("name", name).get()).isEqualTo("5");
+
+		valueGeneratorCache.registerAPropertyDepthGenerator("name", () -> "6");
+		assertThat(valueGeneratorCache.lookUpGenerator("name", name).get()).isEqualTo("6");
+
+		valueGeneratorCache.clear();
+		assertThat(valueGeneratorCache.lookUpGenerator("name", name)).isEqualTo(NOT_COVERED);
+	}
+
 	/**
 	 * 
 	 */
@@ -21,16 +21,32 @@ import static uk.co.optimisticpanda.gtest.dto.edit.Editors.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import junit.framework.TestCase;
 import uk.co.optimisticpanda.gtest.dto.IDataEditor;
 import uk.co.optimisticpanda.gtest.dto.SimpleDataEditor;
 import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.DefaultValueGenerator;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.GenerationIndex;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.ValueGenerator;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.CombinedVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.DataEditorVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IBatchVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.IEngineVisitor;
+import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.ListVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.enggen.visit.PrintVisitor;
 import uk.co.optimisticpanda.gtest.dto.defaultfill.insgen.InstanceGenerator;
 import uk.co.optimisticpanda.gtest.dto.rule.Edit;
@@ -107,6 +123,513 @@ public class DtoGenerationEngineTest extends TestCase {
 		assertThat(generatedEntities.get(1).getName()).isEqualTo("base1");
 	}
 
+	/**
+	 * Test ordered parallel generation
+	 */
+	public void testParallelOrderedCollectAndVisit() {
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "GENVALUE");
+		List<TestDto3> generatedEntities;
+		try (DtoGenerationEngine<TestDto3> parallelEngine = engine.inParallel(4, GenerationOrder.ORDERED)) {
+			generatedEntities = parallelEngine.collectAndVisit(appendIndexToDescriptionVisitor(), 1000);
+		}
+		assertThat(generatedEntities).hasSize(1000);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(generatedEntities.get(i).getDescription()).isEqualTo("GENVALUE-" + i);
+		}
+	}
+
+	/**
+	 * Test unordered parallel generation
+	 */
+	public void testParallelUnorderedCollectAndEdit() {
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "base");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		List<TestDto3> generatedEntities;
+		try {
+			generatedEntities = engine.inParallel(pool, GenerationOrder.UNORDERED).collectAndEdit(getEditor("base"), 1000);
+		} finally {
+			pool.shutdown();
+		}
+		Set<String> names = generatedEntities.stream().map(TestDto3::getName).collect(Collectors.toSet());
+		assertThat(names).hasSize(1000);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(names).contains("base" + i);
+		}
+	}
+
+	/**
+	 * Test a synchronized list visitor can be visited from many threads
+	 */
+	public void testSynchronizedListVisitor() {
+		ListVisitor<TestDto3> listVisitor = ListVisitor.synchronizedVisitor();
+		IntStream.range(0, 1000).parallel().forEach(i -> listVisitor.visit(i, new TestDto3("name" + i, null)));
+		assertThat(listVisitor.getDtos()).hasSize(1000);
+	}
+
+	/**
+	 * Test closing an engine only shuts down a pool it created
+	 */
+	public void testCloseShutsDownOwnedPoolsOnly() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			engine.inParallel(pool, GenerationOrder.ORDERED).close();
+			assertThat(pool.isShutdown()).isFalse();
+		} finally {
+			pool.shutdown();
+		}
+
+		DtoGenerationEngine<TestDto3> parallelEngine = engine.inParallel(2, GenerationOrder.ORDERED);
+		parallelEngine.collect(2);
+		parallelEngine.close();
+		try {
+			parallelEngine.collect(2);
+			fail("should throw an exception!");
+		} catch (RejectedExecutionException e) {
+			// the engine's own pool has been shut down
+		}
+	}
+
+	/**
+	 * Test generating a single index
+	 */
+	public void testGenerateAtMatchesAFullRun() {
+		valueGenerator.registerAPropertyDepthGenerator("name", GenerationIndex.fromIndex(i -> "name" + i));
+		valueGenerator.registerAPropertyDepthGenerator("description",
+				GenerationIndex.seeded(1, random -> "description" + random.nextInt(1000000)));
+
+		List<TestDto3> fullRun = engine.collect(50);
+		TestDto3 single = engine.generateAt(37);
+		assertThat(single.getName()).isEqualTo("name37");
+		assertThat(single.getDescription()).isEqualTo(fullRun.get(37).getDescription());
+		assertThat(fullRun.get(36).getDescription()).isNotEqualTo(fullRun.get(37).getDescription());
+
+		TestDto3 visited = engine.generateAt(12, getDataEditorVisitor("base"));
+		assertThat(visited.getName()).isEqualTo("base12");
+	}
+
+	/**
+	 * Test generating a range of indexes
+	 */
+	public void testCollectRange() {
+		valueGenerator.registerAPropertyDepthGenerator("name", GenerationIndex.fromIndex(i -> "name" + i));
+		valueGenerator.registerAPropertyDepthGenerator("description",
+				GenerationIndex.seeded(2, random -> "description" + random.nextLong()));
+
+		List<TestDto3> fullRun;
+		try (DtoGenerationEngine<TestDto3> parallelEngine = engine.inParallel(4, GenerationOrder.ORDERED)) {
+			fullRun = parallelEngine.collect(30);
+		}
+		List<TestDto3> page = engine.collectRange(20, 5);
+		assertThat(page).hasSize(5);
+		for (int i = 0; i < 5; i++) {
+			assertThat(page.get(i).getName()).isEqualTo("name" + (20 + i));
+			assertThat(page.get(i).getDescription()).isEqualTo(fullRun.get(20 + i).getDescription());
+		}
+	}
+
+	/**
+	 * Test generating and editing past the range of an int
+	 */
+	public void testIndexesBeyondAnInt() {
+		List<TestDto3> page = engine.collectRangeAndVisit(getDataEditorVisitor("base"), Integer.MAX_VALUE - 1L, 3);
+		assertThat(page).extracting("name").containsExactly("base2147483646", "base2147483647", "base2147483648");
+
+		List<Long> indexes = new ArrayList<Long>();
+		try (DtoGenerationEngine<TestDto3> parallelEngine = engine.inParallel(2, GenerationOrder.ORDERED)) {
+			parallelEngine.collectRangeAndVisit(new IEngineVisitor<TestDto3>() {
+				@Override
+				public void visit(int index, TestDto3 dto) {
+					fail("should be visited with a long index");
+				}
+
+				@Override
+				public void visit(long index, TestDto3 dto) {
+					indexes.add(index);
+				}
+			}, 5000000000L, 3);
+		}
+		assertThat(indexes).containsExactly(5000000000L, 5000000001L, 5000000002L);
+
+		try {
+			engine.collectRangeAndVisit((index, dto) -> fail("should not be visited"), 5000000000L, 1);
+			fail("should throw an exception!");
+		} catch (ArithmeticException e) {
+			assertThat(e.getMessage()).isEqualTo("integer overflow");
+		}
+	}
+
+	/**
+	 * Test generating in batches
+	 */
+	public void testGenerateInBatches() {
+		valueGenerator.registerAPropertyDepthGenerator("name", GenerationIndex.fromIndex(i -> "name" + i));
+		List<String> batches = new ArrayList<String>();
+		ListVisitor<TestDto3> listVisitor = new ListVisitor<TestDto3>();
+		IBatchVisitor<TestDto3> recordBatches = (fromIndex, dtos) -> batches.add(fromIndex + ":" + dtos.size());
+
+		engine.generateInBatches(new CombinedVisitor<TestDto3>(getDataEditorVisitor("base"), listVisitor,
+				(index, dto) -> assertThat(dto.getName()).isEqualTo("base" + index)), 10, 4);
+		try (DtoGenerationEngine<TestDto3> parallelEngine = engine.inParallel(4, GenerationOrder.UNORDERED)) {
+			parallelEngine.generateInBatches(recordBatches, 10, 4);
+		}
+
+		assertThat(batches).containsExactly("0:4", "4:4", "8:2");
+		assertThat(listVisitor.getDtos()).extracting("name").containsExactly("base0", "base1", "base2", "base3", "base4",
+				"base5", "base6", "base7", "base8", "base9");
+	}
+
+	/**
+	 * Test batches and pipelines hand visitors long indexes
+	 */
+	public void testBatchesAndPipelinesVisitWithLongIndexes() {
+		List<Long> batchStarts = new ArrayList<Long>();
+		List<Long> indexes = new ArrayList<Long>();
+		IEngineVisitor<TestDto3> recordIndexes = new IEngineVisitor<TestDto3>() {
+			@Override
+			public void visit(int index, TestDto3 dto) {
+				fail("should be visited with a long index");
+			}
+
+			@Override
+			public void visit(long index, TestDto3 dto) {
+				indexes.add(index);
+			}
+		};
+
+		engine.generateInBatches(new IBatchVisitor<TestDto3>() {
+			@Override
+			public void visitBatch(int fromIndex, List<TestDto3> dtos) {
+				fail("should be visited with a long index");
+			}
+
+			@Override
+			public void visitBatch(long fromIndex, List<TestDto3> dtos) {
+				batchStarts.add(fromIndex);
+			}
+		}, 5L, 2);
+		engine.generateInBatches(IBatchVisitor.of(recordIndexes), 3L, 2);
+		engine.pipeline().generatorThreads(2).bufferSize(2).run(recordIndexes, 3L);
+
+		assertThat(batchStarts).containsExactly(0L, 2L, 4L);
+		assertThat(indexes).containsExactly(0L, 1L, 2L, 0L, 1L, 2L);
+	}
+
+	/**
+	 * Test a batch that runs past the range of an int keeps its long indexes
+	 */
+	public void testBatchAcrossTheEndOfAnInt() {
+		List<Long> indexes = new ArrayList<Long>();
+		List<TestDto3> dtos = engine.collect(4);
+		IDataEditor<TestDto3> recordIndexes = new IDataEditor<TestDto3>() {
+			@Override
+			public TestDto3 edit(int index, TestDto3 dataItem) {
+				return edit((long) index, dataItem);
+			}
+
+			@Override
+			public TestDto3 edit(long index, TestDto3 dataItem) {
+				indexes.add(index);
+				return dataItem;
+			}
+
+			@Override
+			public void edit(List<TestDto3> testData) {
+				fail("should be edited one dto at a time");
+			}
+		};
+
+		new CombinedVisitor<TestDto3>(new DataEditorVisitor<TestDto3>(recordIndexes)).visitBatch(Integer.MAX_VALUE - 2L, dtos);
+		try {
+			IBatchVisitor<TestDto3> intOnly = (fromIndex, batch) -> fail("should not be visited with an int index");
+			intOnly.visitBatch(Integer.MAX_VALUE - 2L, dtos);
+			fail("should throw an exception!");
+		} catch (ArithmeticException e) {
+			// the last dto is beyond the range of an int
+		}
+
+		assertThat(indexes).containsExactly(Integer.MAX_VALUE - 2L, Integer.MAX_VALUE - 1L, (long) Integer.MAX_VALUE,
+				Integer.MAX_VALUE + 1L);
+	}
+
+	/**
+	 * Test a batch is released even when the visitor fails
+	 */
+	public void testBatchIsReleasedWhenTheVisitorFails() {
+		List<List<TestDto3>> seen = new ArrayList<List<TestDto3>>();
+		try {
+			engine.generateInBatches((fromIndex, dtos) -> {
+				seen.add(dtos);
+				throw new IllegalStateException("visit failed");
+			}, 10, 4);
+			fail("should throw an exception!");
+		} catch (IllegalStateException e) {
+			assertThat(e).hasMessage("visit failed");
+		}
+
+		assertThat(seen).hasSize(1);
+		assertThat(seen.get(0)).isEmpty();
+	}
+
+	/**
+	 * Test generating each dto on a thread of its own
+	 */
+	public void testOnVirtualThreads() {
+		valueGenerator.registerAPropertyDepthGenerator("name", GenerationIndex.fromIndex(i -> "name" + i));
+		List<String> expected = IntStream.range(0, 50).mapToObj(i -> "name" + i).collect(Collectors.toList());
+
+		try (DtoGenerationEngine<TestDto3> ordered = engine.onVirtualThreads(8, GenerationOrder.ORDERED)) {
+			assertThat(ordered.collect(50)).extracting("name").isEqualTo(expected);
+		}
+		try (DtoGenerationEngine<TestDto3> unordered = engine.onVirtualThreads(8, GenerationOrder.UNORDERED)) {
+			assertThat(unordered.collect(50)).extracting("name").containsOnlyElementsOf(expected).hasSize(50);
+		}
+	}
+
+	/**
+	 * Test the number of dtos in flight is limited
+	 */
+	public void testOnExecutorLimitsDtosInFlight() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger mostInFlight = new AtomicInteger();
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> {
+			mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			return "name";
+		});
+		ForkJoinPool pool = new ForkJoinPool(16);
+		try {
+			engine.onExecutor(pool, 3, GenerationOrder.UNORDERED).collect(60);
+			engine.onExecutor(pool, 3, GenerationOrder.ORDERED).collect(60);
+		} finally {
+			pool.shutdown();
+		}
+
+		assertThat(mostInFlight.get()).isBetween(1, 3);
+	}
+
+	/**
+	 * Test dtos still in flight are cancelled when the visitor fails
+	 */
+	public void testFailingVisitorCancelsDtosInFlight() {
+		AtomicInteger generated = new AtomicInteger();
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "name" + generated.getAndIncrement());
+		List<Runnable> queued = new ArrayList<Runnable>();
+		Executor runsOnlyTheFirstTask = task -> {
+			if (generated.get() == 0 && queued.isEmpty()) {
+				task.run();
+			} else {
+				queued.add(task);
+			}
+		};
+
+		try {
+			engine.onExecutor(runsOnlyTheFirstTask, 3, GenerationOrder.ORDERED).generate((index, dto) -> {
+				throw new IllegalStateException("visit failed");
+			}, 10);
+			fail("should throw an exception!");
+		} catch (IllegalStateException e) {
+			assertThat(e).hasMessage("visit failed");
+		}
+		queued.forEach(Runnable::run);
+
+		assertThat(queued).hasSize(2);
+		assertThat(generated.get()).isEqualTo(1);
+	}
+
+	/**
+	 * Test generating through a pipeline of stages
+	 */
+	public void testPipeline() {
+		List<String> expected = IntStream.range(0, 100).mapToObj(i -> "base" + i).collect(Collectors.toList());
+		List<String> ordered = new ArrayList<String>();
+		List<String> unordered = new ArrayList<String>();
+
+		engine.pipeline().generatorThreads(3).editWith(getEditor("base"), 2).bufferSize(4)
+				.run((index, dto) -> ordered.add(dto.getName()), 100);
+		engine.pipeline().generatorThreads(3).editWith(getEditor("base"), 2).bufferSize(4).order(GenerationOrder.UNORDERED)
+				.run((index, dto) -> unordered.add(dto.getName()), 100);
+
+		assertThat(ordered).isEqualTo(expected);
+		assertThat(unordered).containsOnlyElementsOf(expected).hasSize(100).doesNotHaveDuplicates();
+	}
+
+	/**
+	 * Test a failing stage stops the pipeline
+	 */
+	public void testPipelineFailure() {
+		try {
+			engine.pipeline().generatorThreads(2).bufferSize(2).run((index, dto) -> {
+				if (index == 5) {
+					throw new IllegalStateException("sink failed at " + index);
+				}
+			}, 1000);
+			fail("should throw an exception!");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage()).isEqualTo("sink failed at 5");
+		}
+	}
+
+	/**
+	 * Test publishing to a reactive streams subscriber
+	 */
+	public void testPublish() {
+		List<String> events = new ArrayList<String>();
+		engine.publishAndEdit(getEditor("base"), 5).subscribe(new Subscriber<TestDto3>() {
+			private Subscription subscription;
+
+			@Override
+			public void onSubscribe(Subscription s) {
+				subscription = s;
+				s.request(2);
+			}
+
+			@Override
+			public void onNext(TestDto3 dto) {
+				events.add(dto.getName());
+				if (dto.getName().endsWith("1") || dto.getName().endsWith("3")) {
+					subscription.request(2);
+				}
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add("error");
+			}
+
+			@Override
+			public void onComplete() {
+				events.add("complete");
+			}
+		});
+		assertThat(events).containsExactly("base0", "base1", "base2", "base3", "base4", "complete");
+	}
+
+	/**
+	 * Test publishing only generates what is requested
+	 */
+	public void testPublishOnDemand() {
+		AtomicInteger created = new AtomicInteger();
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "name" + created.getAndIncrement());
+		List<String> events = new ArrayList<String>();
+		List<Subscription> subscriptions = new ArrayList<Subscription>();
+		engine.publish(Long.MAX_VALUE).subscribe(new Subscriber<TestDto3>() {
+			@Override
+			public void onSubscribe(Subscription s) {
+				subscriptions.add(s);
+			}
+
+			@Override
+			public void onNext(TestDto3 dto) {
+				events.add(dto.getName());
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add(t.getMessage());
+			}
+
+			@Override
+			public void onComplete() {
+				events.add("complete");
+			}
+		});
+		Subscription subscription = subscriptions.get(0);
+		assertThat(created.get()).isEqualTo(0);
+
+		subscription.request(3);
+		assertThat(events).containsExactly("name0", "name1", "name2");
+
+		subscription.request(0);
+		subscription.request(1);
+		assertThat(events).containsExactly("name0", "name1", "name2", "The number of dtos requested must be positive: 0");
+		assertThat(created.get()).isEqualTo(3);
+	}
+
+	/**
+	 * Test index suppliers outside of indexed generation
+	 */
+	public void testIndexIsOnlyAvailableWhileGenerating() {
+		assertThat(GenerationIndex.isSet()).isFalse();
+		valueGenerator.registerAPropertyDepthGenerator("name", GenerationIndex.fromIndex(i -> "name" + i));
+		try {
+			generator.generate();
+			fail("should throw an exception!");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage()).startsWith("No generation index is set.");
+		}
+		assertThat(generator.generate(3).getName()).isEqualTo("name3");
+		assertThat(GenerationIndex.isSet()).isFalse();
+	}
+
+	/**
+	 * Test Stream
+	 */
+	public void testStreamIsLazy() {
+		AtomicInteger created = new AtomicInteger();
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "name" + created.getAndIncrement());
+
+		List<String> names = engine.stream(1000000000L) //
+				.limit(3) //
+				.map(i -> i.index + ":" + i.item.getName()) //
+				.collect(Collectors.toList());
+		assertThat(names).containsExactly("0:name0", "1:name1", "2:name2");
+		assertThat(created.get()).isEqualTo(3);
+
+		assertThat(engine.stream().skip(5).findFirst().get().index).isEqualTo(5);
+	}
+
+	/**
+	 * Test streaming with long indexes
+	 */
+	public void testStreamLongGoesPastAnInt() {
+		valueGenerator.registerAPropertyDepthGenerator("name", GenerationIndex.fromIndex(i -> "name" + i));
+		List<Long> visited = new ArrayList<Long>();
+
+		List<String> names = engine.streamRange(Integer.MAX_VALUE - 1L, 3) //
+				.map(i -> i.index + ":" + i.item.getName()) //
+				.collect(Collectors.toList());
+		List<Long> indexes = engine.streamLongAndVisit(new IEngineVisitor<TestDto3>() {
+			@Override
+			public void visit(int index, TestDto3 dto) {
+				visited.add((long) index);
+			}
+		}, 3).map(i -> i.index).collect(Collectors.toList());
+
+		assertThat(names).containsExactly("2147483646:name2147483646", "2147483647:name2147483647",
+				"2147483648:name2147483648");
+		assertThat(indexes).containsExactly(0L, 1L, 2L);
+		assertThat(visited).containsExactly(0L, 1L, 2L);
+		assertThat(engine.streamLong().skip(5).findFirst().get().index).isEqualTo(5L);
+		assertThat(engine.streamLong(2).count()).isEqualTo(2);
+	}
+
+	/**
+	 * Test StreamAndVisit
+	 */
+	public void testStreamAndVisit() {
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "GENVALUE");
+		List<String> descriptions = engine.streamAndVisit(appendIndexToDescriptionVisitor(), 2) //
+				.map(i -> i.item.getDescription()) //
+				.collect(Collectors.toList());
+		assertThat(descriptions).containsExactly("GENVALUE-0", "GENVALUE-1");
+	}
+
+	/**
+	 * Test StreamAndEdit
+	 */
+	public void testStreamAndEdit() {
+		valueGenerator.registerAPropertyDepthGenerator("name", () -> "base");
+		List<String> names = engine.streamAndEdit(getEditor("base"), 2) //
+				.map(i -> i.item.getName()) //
+				.collect(Collectors.toList());
+		assertThat(names).containsExactly("base0", "base1");
+	}
+
 	/**
 	 * Test CollectAndEdit
 	 */
@@ -145,6 +668,10 @@ public class DtoGenerationEngineTest extends TestCase {
 		return new PrintVisitor<TestDto3>(stream);
 	}
 	
+	private IEngineVisitor<TestDto3> getDataEditorVisitor(final String baseName) {
+		return new DataEditorVisitor<TestDto3>(getEditor(baseName));
+	}
+
 	private IDataEditor<TestDto3> getEditor(final String baseName) {
 		Edit<TestDto3> edit = Edits.doThis(//
 				incrementEach("name").withBase(baseName))//
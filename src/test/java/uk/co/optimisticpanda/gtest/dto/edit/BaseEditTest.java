@@ -18,7 +18,11 @@ package uk.co.optimisticpanda.gtest.dto.edit;
 import static org.assertj.core.api.Assertions.assertThat;
 import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.index;
 import static uk.co.optimisticpanda.gtest.dto.edit.Editors.incrementEach;
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.TestCase;
+import uk.co.optimisticpanda.gtest.dto.SimpleDataEditor;
 import uk.co.optimisticpanda.gtest.dto.edit.Editor;
 import uk.co.optimisticpanda.gtest.dto.rule.BaseEdit;
 import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto1;
@@ -51,4 +55,23 @@ public class BaseEditTest extends TestCase{
         rule.edit(2, dto);
         assertThat(dto.getName()).isEqualTo("basename-" + 2);
     }
+
+    public void testSubclassOverridingTheIntMethodsIsUsedForInRangeIndexes() throws Exception {
+        BaseEdit<TestDto1> onlyIndexThree = new BaseEdit<TestDto1>(incrementEach("name").withBase("basename-"), index().isEven()) {
+            @Override
+            public boolean isValid(int index, TestDto1 dataItem) {
+                return index == 3;
+            }
+        };
+        SimpleDataEditor<TestDto1> editor = SimpleDataEditor.<TestDto1> create().add(onlyIndexThree);
+
+        List<TestDto1> dtos = Arrays.asList(new TestDto1(null), new TestDto1(null), new TestDto1(null), new TestDto1(null));
+        editor.edit(dtos);
+        TestDto1 compiled = editor.compile().edit(3L, new TestDto1(null));
+        TestDto1 beyondAnInt = editor.edit(4000000000L, new TestDto1(null));
+
+        assertThat(dtos).extracting("name").containsExactly(null, null, null, "basename-3");
+        assertThat(compiled.getName()).isEqualTo("basename-3");
+        assertThat(beyondAnInt.getName()).isEqualTo("basename-4000000000");
+    }
 }
@@ -53,4 +53,13 @@ public class IncrementingNameEditTest extends TestCase{
         incrementingNameEdit.edit(2, testDto3);
         assertThat(testDto3.getName()).isEqualTo("myName-2");
     }
+
+    /**
+     * @throws Exception
+     */
+    public void testIndexBeyondAnInt() throws Exception {
+        TestDto1 testDto1 = new TestDto1(null);
+        incrementingNameEdit.edit(3000000000L, testDto1);
+        assertThat(testDto1.getName()).isEqualTo("myName-3000000000");
+    }
 }
@@ -93,6 +93,41 @@ public class IteratingCollectionEditTest extends TestCase {
 		}
 	}
 
+	public void testBasedOnIndexUsesTheValueAtTheIndex() {
+		Editor edit = changeValueOf("name").use("a", "b", "c").basedOnIndex().andCycle();
+		for (int index : new int[] { 4, 0, 5, 2, 1, 3 }) {
+			edit.edit(index, list.get(index));
+		}
+		assertThat(list).extracting("name").containsExactly("a", "b", "c", "a", "b", "c");
+	}
+
+	public void testBasedOnIndexPastTheEndOfTheValues() {
+		changeValueOf("name").use("a", "b").basedOnIndex().andLeaveTheRest().edit(4, list.get(4));
+		assertThat(list.get(4).getName()).isEqualTo("name 5");
+
+		changeValueOf("name").use("a", "b").basedOnIndex().andThenFillWithNulls().edit(1000, list.get(4));
+		assertThat(list.get(4).getName()).isNull();
+
+		Editor edit = changeValueOf("name").use("a", "b").basedOnIndex().andThenThrowException();
+		edit.edit(1, list.get(1));
+		assertThat(list.get(1).getName()).isEqualTo("b");
+		try {
+			edit.edit(2, list.get(2));
+			fail("Should fail");
+		} catch (IndexOutOfBoundsException e) {
+			// do nothing
+		}
+	}
+
+	public void testBasedOnIndexCannotCycleThroughNoValues() {
+		try {
+			changeValueOf("name").use().basedOnIndex().andCycle();
+			fail("Should fail");
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).contains("empty list of values");
+		}
+	}
+
 	private void checkFirst3Calls(Editor edit, String expected1, String expected2, String expected3) {
 		edit.edit(-1, list.get(0));
 		assertThat(list.get(0).getName()).isEqualTo(expected1);
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.Function;
+
+import junit.framework.TestCase;
+import ognl.DefaultMemberAccess;
+import ognl.OgnlContext;
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl.OgnlPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.rflc.ReflectionPropertyAccessFactory;
+
+/**
+ * @author Andy Lee
+ * 
+ */
+public class PropertyAccessCacheTest extends TestCase {
+
+	private final Function<Object, IPropertyAccess> factory = context -> new ReflectionPropertyAccessFactory()
+			.createPropertyAccess(context);
+
+	/**
+	 * @throws Exception
+	 */
+	public void testAccessorsAreShared() throws Exception {
+		PropertyAccessCache cache = new PropertyAccessCache();
+		IPropertyAccess first = cache.get("name", factory);
+		IPropertyAccess second = cache.get("name", factory);
+		IPropertyAccess other = cache.get("description", factory);
+
+		assertThat(second).isSameAs(first);
+		assertThat(other).isNotSameAs(first);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(2);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testOldestAccessorsAreEvictedFirst() throws Exception {
+		PropertyAccessCache cache = new PropertyAccessCache();
+		cache.setMaximumSize(2);
+		IPropertyAccess first = cache.get("a", factory);
+		IPropertyAccess second = cache.get("b", factory);
+		cache.get("c", factory);
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.get("b", factory)).isSameAs(second);
+		assertThat(cache.get("a", factory)).isNotSameAs(first);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testZeroMaximumSizeTurnsCachingOff() throws Exception {
+		PropertyAccessCache cache = new PropertyAccessCache();
+		cache.get("a", factory);
+		cache.setMaximumSize(0);
+
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.get("a", factory)).isNotSameAs(cache.get("a", factory));
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testClear() throws Exception {
+		PropertyAccessCache cache = new PropertyAccessCache();
+		IPropertyAccess first = cache.get("a", factory);
+		cache.clear();
+
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.get("a", factory)).isNotSameAs(first);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testFactoriesShareAccessors() throws Exception {
+		TestUtilsContext.useReflection();
+		IPropertyAccessFactory propertyAccessFactory = TestUtilsContext.getPropertyAccessFactory();
+		assertThat(propertyAccessFactory.createPropertyAccess("name")).isSameAs(
+				propertyAccessFactory.createPropertyAccess("name"));
+
+		TestUtilsContext.useHandles();
+		propertyAccessFactory = TestUtilsContext.getPropertyAccessFactory();
+		assertThat(propertyAccessFactory.createPropertyAccess("name")).isSameAs(
+				propertyAccessFactory.createPropertyAccess("name"));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testOgnlAccessorsAreNotSharedAcrossContexts() throws Exception {
+		TestUtilsContext.useOgnl();
+		OgnlPropertyAccessFactory propertyAccessFactory = (OgnlPropertyAccessFactory) TestUtilsContext
+				.getPropertyAccessFactory();
+		IPropertyAccess first = propertyAccessFactory.createPropertyAccess("name");
+		assertThat(propertyAccessFactory.createPropertyAccess("name")).isSameAs(first);
+
+		OgnlContext context = new OgnlContext();
+		context.setMemberAccess(new DefaultMemberAccess(true));
+		TestUtilsContext.setOgnlContext(context);
+
+		assertThat(propertyAccessFactory.createPropertyAccess("name")).isNotSameAs(first);
+		assertThat(propertyAccessFactory.getCache().size()).isEqualTo(1);
+	}
+}
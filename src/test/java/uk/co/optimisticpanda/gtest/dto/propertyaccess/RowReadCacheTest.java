@@ -0,0 +1,154 @@
+/*
+ * Copyright 2009 Andy Lee.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.co.optimisticpanda.gtest.dto.condition.Conditions.valueOf;
+import static uk.co.optimisticpanda.gtest.dto.edit.Editors.changeValueOf;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import uk.co.optimisticpanda.gtest.dto.SimpleDataEditor;
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.rflc.ReflectionPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.rule.BaseEdit;
+import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto1;
+
+/**
+ * @author Andy Lee
+ *
+ */
+public class RowReadCacheTest extends TestCase {
+
+	private final AtomicInteger reads = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IPropertyAccessFactory reflection = new ReflectionPropertyAccessFactory();
+		TestUtilsContext.setPropertyAccessFactory(context -> {
+			IPropertyAccess access = reflection.createPropertyAccess(context);
+			return new IPropertyAccess() {
+				@Override
+				public Object getValue(Object instance) {
+					reads.incrementAndGet();
+					return access.getValue(instance);
+				}
+
+				@Override
+				public void setValue(Object instance, Object value) {
+					access.setValue(instance, value);
+				}
+			};
+		});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TestUtilsContext.clearContext();
+		super.tearDown();
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testReadsAreOnlyCachedWhileARowIsOpen() throws Exception {
+		TestDto1 dto = new TestDto1("a");
+		SimpleDataEditor<TestDto1> editor = editor();
+
+		editor.edit(0, dto);
+		assertThat(reads.get()).isEqualTo(3);
+
+		reads.set(0);
+		dto.setName("a");
+		editor.cachingReads().edit(0, dto);
+		assertThat(reads.get()).isEqualTo(1);
+		assertThat(dto.getName()).isEqualTo("a");
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testWritesInvalidateTheCachedValue() throws Exception {
+		TestDto1 dto = new TestDto1("a");
+		SimpleDataEditor<TestDto1> editor = SimpleDataEditor.<TestDto1> create().cachingReads()
+				.add(new BaseEdit<TestDto1>(changeValueOf("name").to("b"), valueOf("name").is("a")))
+				.add(new BaseEdit<TestDto1>(changeValueOf("name").to("c"), valueOf("name").is("b")));
+
+		editor.edit(0, dto);
+
+		assertThat(dto.getName()).isEqualTo("c");
+		assertThat(reads.get()).isEqualTo(2);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testOnlyTheRowsDtoIsCached() throws Exception {
+		IPropertyAccess access = TestUtilsContext.getPropertyAccessFactory().createPropertyAccess("name");
+		TestDto1 row = new TestDto1("a");
+		TestDto1 other = new TestDto1("b");
+		try (RowReadCache cache = RowReadCache.open(row)) {
+			RowReadCache.read(row, "name", access);
+			RowReadCache.read(row, "name", access);
+			RowReadCache.read(other, "name", access);
+			RowReadCache.read(other, "name", access);
+			assertThat(cache.size()).isEqualTo(1);
+		}
+		assertThat(reads.get()).isEqualTo(3);
+		RowReadCache.read(row, "name", access);
+		assertThat(reads.get()).isEqualTo(4);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testOverlappingExpressionsAreInvalidated() throws Exception {
+		IPropertyAccess access = TestUtilsContext.getPropertyAccessFactory().createPropertyAccess("name");
+		TestDto1 row = new TestDto1("a");
+		try (RowReadCache cache = RowReadCache.open(row)) {
+			RowReadCache.read(row, "name", access);
+			RowReadCache.read(row, "other", access);
+			RowReadCache.written(row, "name.first");
+			assertThat(cache.size()).isEqualTo(1);
+			RowReadCache.written(row, Integer.valueOf(1));
+			assertThat(cache.size()).isEqualTo(0);
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testOpenRowsAreCounted() throws Exception {
+		assertThat(RowReadCache.anyOpen()).isFalse();
+		RowReadCache outer = RowReadCache.open(new TestDto1("a"));
+		RowReadCache inner = RowReadCache.open(new TestDto1("b"));
+		assertThat(RowReadCache.anyOpen()).isTrue();
+		inner.close();
+		assertThat(RowReadCache.anyOpen()).isTrue();
+		outer.close();
+		outer.close();
+		assertThat(RowReadCache.anyOpen()).isFalse();
+	}
+
+	private SimpleDataEditor<TestDto1> editor() {
+		return SimpleDataEditor.<TestDto1> create()
+				.add(new BaseEdit<TestDto1>(changeValueOf("name").to("x"), valueOf("name").is("b")))
+				.add(new BaseEdit<TestDto1>(changeValueOf("name").to("y"), valueOf("name").is("c")))
+				.add(new BaseEdit<TestDto1>(changeValueOf("name").to("z"), valueOf("name").is("d")));
+	}
+}
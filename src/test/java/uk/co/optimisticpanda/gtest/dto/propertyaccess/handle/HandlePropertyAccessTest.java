@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess.handle;
+
+import java.util.Date;
+
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+import uk.co.optimisticpanda.gtest.dto.test.utils.DetailedTestDto;
+import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto1;
+
+import junit.framework.TestCase;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Andy Lee
+ * 
+ */
+public class HandlePropertyAccessTest extends TestCase {
+
+	private static final String STARTING_STRING_VALUE = "start";
+	private static final String CHANGED_STRING_VALUE = "changed";
+	private IPropertyAccessFactory propertyAccessFactory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		TestUtilsContext.useHandles();
+		propertyAccessFactory = TestUtilsContext.getPropertyAccessFactory();
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testSimpleHandlePropertyAccess() throws Exception {
+		TestDto1 dto = new TestDto1(STARTING_STRING_VALUE);
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		assertThat(propertyAccess.getValue(dto)).isEqualTo(STARTING_STRING_VALUE);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testSimpleHandlePropertySetting() throws Exception {
+		TestDto1 dto = new TestDto1(STARTING_STRING_VALUE);
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		propertyAccess.setValue(dto, CHANGED_STRING_VALUE);
+		assertThat(dto.getName()).isEqualTo(CHANGED_STRING_VALUE);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testPrivateFinalFieldsCanBeReadAndWritten() throws Exception {
+		DetailedTestDto dto = new DetailedTestDto(STARTING_STRING_VALUE, new Date(), 5);
+
+		IPropertyAccess numberAccess = propertyAccessFactory.createPropertyAccess("number");
+		assertThat(numberAccess.getValue(dto)).isEqualTo(5);
+
+		numberAccess.setValue(dto, 7);
+		assertThat(numberAccess.getValue(dto)).isEqualTo(7);
+
+		IPropertyAccess nameAccess = propertyAccessFactory.createPropertyAccess("name");
+		nameAccess.setValue(dto, CHANGED_STRING_VALUE);
+		assertThat(dto.getName()).isEqualTo(CHANGED_STRING_VALUE);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testTheSameAccessCanBeUsedAcrossClasses() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		TestDto1 dto1 = new TestDto1(STARTING_STRING_VALUE);
+		DetailedTestDto dto2 = new DetailedTestDto(CHANGED_STRING_VALUE, new Date(), 5);
+
+		assertThat(propertyAccess.getValue(dto1)).isEqualTo(STARTING_STRING_VALUE);
+		assertThat(propertyAccess.getValue(dto2)).isEqualTo(CHANGED_STRING_VALUE);
+		assertThat(propertyAccess.getValue(dto1)).isEqualTo(STARTING_STRING_VALUE);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testWrongTypesAreReported() throws Exception {
+		DetailedTestDto dto = new DetailedTestDto(STARTING_STRING_VALUE, new Date(), 5);
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("number");
+		try {
+			propertyAccess.setValue(dto, "not a number");
+			fail("Should throw exception!");
+		} catch (PropertyAccessException e) {
+			// do nothing as expected
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testPropertyAccessFactory() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("dsfdsgdhfdfhdfhdf");
+		try {
+			propertyAccess.getValue(new TestDto1(STARTING_STRING_VALUE));
+			fail("Should throw exception!");
+		} catch (PropertyAccessException e) {
+			assertThat(e.getMessage()).isEqualTo("Could not find field name called:dsfdsgdhfdfhdfhdf");
+		}
+
+		try {
+			propertyAccessFactory.createPropertyAccess(new String[0]);
+			fail("Should throw exception!");
+		} catch (PropertyAccessException e) {
+			// do nothing as expected
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2009 Andy Lee.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package uk.co.optimisticpanda.gtest.dto.propertyaccess.ognl;
+
+import java.util.Date;
+
+import uk.co.optimisticpanda.gtest.dto.TestUtilsContext;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccess;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.IPropertyAccessFactory;
+import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+import uk.co.optimisticpanda.gtest.dto.test.utils.DetailedTestDto;
+import uk.co.optimisticpanda.gtest.dto.test.utils.DetailedTestDtoComposite;
+import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto1;
+import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto3;
+
+import junit.framework.TestCase;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Andy Lee
+ *
+ */
+public class CompiledOgnlPropertyAccessTest extends TestCase {
+
+	private static final String STARTING_STRING_VALUE = "start";
+	private static final String CHANGED_STRING_VALUE = "changed";
+	private IPropertyAccessFactory propertyAccessFactory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		TestUtilsContext.useCompiledOgnl();
+		propertyAccessFactory = TestUtilsContext.getPropertyAccessFactory();
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testFactoryCompilesExpressions() throws Exception {
+		assertThat(((OgnlPropertyAccessFactory) propertyAccessFactory).isCompilingExpressions()).isTrue();
+		TestUtilsContext.useOgnl();
+		assertThat(((OgnlPropertyAccessFactory) TestUtilsContext.getPropertyAccessFactory()).isCompilingExpressions()).isFalse();
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testCompiledAccessIsReusedAcrossInstances() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		for (int i = 0; i < 3; i++) {
+			TestDto3 dto = new TestDto3(STARTING_STRING_VALUE + i, null);
+			assertThat(propertyAccess.getValue(dto)).isEqualTo(STARTING_STRING_VALUE + i);
+			propertyAccess.setValue(dto, CHANGED_STRING_VALUE + i);
+			assertThat(dto.getName()).isEqualTo(CHANGED_STRING_VALUE + i);
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testDottedExpressions() throws Exception {
+		DetailedTestDtoComposite parent = new DetailedTestDtoComposite(STARTING_STRING_VALUE, 1, 2, 3);
+		DetailedTestDtoComposite child = new DetailedTestDtoComposite(CHANGED_STRING_VALUE, 4, 5, 6);
+		parent.addChild(child);
+
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("children[0].name");
+		assertThat(propertyAccess.getValue(parent)).isEqualTo(CHANGED_STRING_VALUE);
+
+		propertyAccess.setValue(parent, STARTING_STRING_VALUE);
+		assertThat(child.getName()).isEqualTo(STARTING_STRING_VALUE);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testPrivateFieldsWithoutGettersFallBackToInterpreting() throws Exception {
+		Date date = new Date();
+		DetailedTestDto dto = new DetailedTestDto(STARTING_STRING_VALUE, date, 5);
+
+		IPropertyAccess numberAccess = propertyAccessFactory.createPropertyAccess("number");
+		assertThat(numberAccess.getValue(dto)).isEqualTo(5);
+
+		IPropertyAccess timeAccess = propertyAccessFactory.createPropertyAccess("date.fastTime");
+		assertThat(timeAccess.getValue(dto)).isEqualTo(date.getTime());
+		timeAccess.setValue(dto, 1L);
+		assertThat(dto.date.getTime()).isEqualTo(1L);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testTheSameAccessCanBeUsedAcrossClasses() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		TestDto1 dto1 = new TestDto1(STARTING_STRING_VALUE);
+		TestDto3 dto3 = new TestDto3(CHANGED_STRING_VALUE, null);
+
+		assertThat(propertyAccess.getValue(dto1)).isEqualTo(STARTING_STRING_VALUE);
+		assertThat(propertyAccess.getValue(dto3)).isEqualTo(CHANGED_STRING_VALUE);
+		assertThat(propertyAccess.getValue(dto1)).isEqualTo(STARTING_STRING_VALUE);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testFailuresAreReportedAsWhenInterpreting() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("children[0].name");
+		DetailedTestDtoComposite parent = new DetailedTestDtoComposite(STARTING_STRING_VALUE, 1, 2, 3);
+		parent.addChild(new DetailedTestDtoComposite(CHANGED_STRING_VALUE, 4, 5, 6));
+		assertThat(propertyAccess.getValue(parent)).isEqualTo(CHANGED_STRING_VALUE);
+
+		try {
+			propertyAccess.getValue(new DetailedTestDtoComposite());
+			fail("Should throw exception!");
+		} catch (PropertyAccessException e) {
+			// do nothing as expected
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testCompiledAccessIsOnlyUsedOnceItHasReadANonNullValue() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		CountingDto dto = new CountingDto();
+
+		// compiling reads the property as well
+		assertThat(propertyAccess.getValue(dto)).isNull();
+		dto.reads = 0;
+		assertThat(propertyAccess.getValue(dto)).isNull();
+		assertThat(dto.reads).isEqualTo(1);
+
+		dto.name = STARTING_STRING_VALUE;
+		assertThat(propertyAccess.getValue(dto)).isEqualTo(STARTING_STRING_VALUE);
+		assertThat(dto.reads).isEqualTo(3);
+
+		assertThat(propertyAccess.getValue(dto)).isEqualTo(STARTING_STRING_VALUE);
+		assertThat(dto.reads).isEqualTo(4);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testCompiledWritesAreOnlyUsedOnceAWriteHasBeenReadBack() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		CountingDto dto = new CountingDto();
+		dto.name = STARTING_STRING_VALUE;
+		propertyAccess.getValue(dto);
+		dto.reads = 0;
+
+		// the current value would be read back whatever was written
+		propertyAccess.setValue(dto, STARTING_STRING_VALUE);
+		assertThat(dto.reads).isEqualTo(1);
+
+		propertyAccess.setValue(dto, CHANGED_STRING_VALUE);
+		assertThat(dto.name).isEqualTo(CHANGED_STRING_VALUE);
+		assertThat(dto.reads).isEqualTo(3);
+
+		propertyAccess.setValue(dto, STARTING_STRING_VALUE);
+		assertThat(dto.name).isEqualTo(STARTING_STRING_VALUE);
+		assertThat(dto.reads).isEqualTo(3);
+		assertThat(dto.writes).isEqualTo(3);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testCompiledWritesConvertValues() throws Exception {
+		DetailedTestDto dto = new DetailedTestDto(STARTING_STRING_VALUE, new Date(), 5);
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("date.time");
+		propertyAccess.getValue(dto);
+
+		propertyAccess.setValue(dto, "7");
+		assertThat(dto.date.getTime()).isEqualTo(7L);
+		propertyAccess.setValue(dto, 8L);
+		assertThat(dto.date.getTime()).isEqualTo(8L);
+		propertyAccess.setValue(dto, "9");
+		assertThat(dto.date.getTime()).isEqualTo(9L);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testGettersAndSettersThatThrowAreOnlyCalledOnce() throws Exception {
+		IPropertyAccess propertyAccess = propertyAccessFactory.createPropertyAccess("name");
+		CountingDto dto = new CountingDto();
+		dto.name = STARTING_STRING_VALUE;
+		propertyAccess.getValue(dto);
+		dto.reads = 0;
+
+		dto.failing = true;
+		try {
+			propertyAccess.getValue(dto);
+			fail("Should throw exception!");
+		} catch (PropertyAccessException e) {
+			assertThat(dto.reads).isEqualTo(1);
+		}
+		try {
+			propertyAccess.setValue(dto, CHANGED_STRING_VALUE);
+			fail("Should throw exception!");
+		} catch (PropertyAccessException e) {
+			assertThat(dto.writes).isEqualTo(1);
+		}
+	}
+
+	/**
+	 * A dto that counts calls to its getter and setter, and can make them
+	 * throw.
+	 */
+	public static class CountingDto {
+		private String name;
+		private boolean failing;
+		private int reads;
+		private int writes;
+
+		public String getName() {
+			reads++;
+			if (failing) {
+				throw new IllegalStateException("getter failed");
+			}
+			return name;
+		}
+
+		public void setName(String name) {
+			writes++;
+			if (failing) {
+				throw new IllegalStateException("setter failed");
+			}
+			this.name = name;
+		}
+	}
+}
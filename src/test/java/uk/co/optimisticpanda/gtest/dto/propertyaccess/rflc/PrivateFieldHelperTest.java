@@ -15,7 +15,10 @@
  */
 package uk.co.optimisticpanda.gtest.dto.propertyaccess.rflc;
 
+import java.util.Date;
+
 import uk.co.optimisticpanda.gtest.dto.propertyaccess.PropertyAccessException;
+import uk.co.optimisticpanda.gtest.dto.test.utils.DetailedTestDto;
 import uk.co.optimisticpanda.gtest.dto.test.utils.TestDto1;
 import uk.co.optimisticpanda.gtest.dto.util.PrivateFieldHelper;
 import junit.framework.TestCase;
@@ -77,4 +80,51 @@ public class PrivateFieldHelperTest extends TestCase {
 		}
 	}
 
+	/**
+	 * @throws Exception
+	 */
+	public void testGetAndSetSuperclassField() throws Exception {
+		PrivateFieldHelper helper = new PrivateFieldHelper("name");
+		ExtendedTestDto dto = new ExtendedTestDto("nameValue");
+		assertThat(helper.<String> get(dto)).isEqualTo("nameValue");
+
+		helper.set(dto, "newNameValue");
+		assertThat(dto.getName()).isEqualTo("newNameValue");
+		assertThat(helper.<String> get(dto)).isEqualTo("newNameValue");
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testSubclassFieldsHideSuperclassFields() throws Exception {
+		PrivateFieldHelper helper = new PrivateFieldHelper("name");
+		ExtendedTestDto dto = new ExtendedTestDto("nameValue");
+		assertThat(helper.<ExtendedTestDto> get(new HidingTestDto(dto))).isEqualTo(dto);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testSetFinalField() throws Exception {
+		PrivateFieldHelper helper = new PrivateFieldHelper("number");
+		DetailedTestDto dto = new DetailedTestDto("nameValue", new Date(), 5);
+		helper.set(dto, 6);
+		assertThat(helper.<Integer> get(dto)).isEqualTo(6);
+	}
+
+	private static class ExtendedTestDto extends TestDto1 {
+		private ExtendedTestDto(String name) {
+			super(name);
+		}
+	}
+
+	private static class HidingTestDto extends TestDto1 {
+		@SuppressWarnings("unused")
+		private final ExtendedTestDto name;
+
+		private HidingTestDto(ExtendedTestDto name) {
+			super("hidden");
+			this.name = name;
+		}
+	}
 }